@@ -0,0 +1,4 @@
+package algorithms;
+public interface CharSortAlgorithm {
+    void sort(char[] array);
+}
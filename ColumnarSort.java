@@ -0,0 +1,447 @@
+package algorithms;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-column sort for rows stored as parallel primitive columns, for example
+ * {@code int[] region, long[] ts, int[] id}.
+ * <p>
+ * The sort order is a list of key columns, each ascending ({@link #asc}) or descending
+ * ({@link #desc}); later keys break ties of earlier ones, and rows equal on all keys keep
+ * their original order (stable). {@link #argsort(SortKey...)} returns the sorting
+ * permutation and {@link #sort(SortKey[], Object...)} reorders the key columns and any
+ * companion columns in place, so no row objects are ever built.
+ * <p>
+ * The composite key is laid out in one of three ways, chosen per call from the value
+ * ranges of the key columns:
+ * <ul>
+ *   <li>If the keys plus the row index fit in 64 bits, every row becomes one long
+ *       (key fields, then the index) and the long[] is sorted with
+ *       {@link ParallelLongMergeSort}. The index makes the order stable and gives back
+ *       the permutation.</li>
+ *   <li>If only the keys fit, the packed keys go in a long[] and a Fork/Join merge sort
+ *       of row indices compares one long per row.</li>
+ *   <li>Otherwise the index merge sort compares the columns one after another.</li>
+ * </ul>
+ * A key field is the value's offset from the column minimum (ascending) or from the
+ * column maximum (descending), so it needs only as many bits as the column's range.
+ * Packing can be switched off with {@link #ColumnarSort(int, boolean)}.
+ */
+public class ColumnarSort {
+
+    /**
+     * How the composite key is laid out for one sort.
+     */
+    enum KeyLayout {
+        PACKED_WITH_INDEX, PACKED, COLUMNS
+    }
+
+    private final int threshold;
+    private final boolean packKeys;
+    private final ForkJoinPool pool;
+    private final ParallelArgSort gather;
+
+    /**
+     * Creates a ColumnarSort with a default threshold and key packing.
+     */
+    public ColumnarSort() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a ColumnarSort with a custom threshold and key packing.
+     *
+     * @param threshold minimum segment size to process in parallel
+     */
+    public ColumnarSort(int threshold) {
+        this(threshold, true);
+    }
+
+    /**
+     * Creates a ColumnarSort with a custom threshold.
+     *
+     * @param threshold minimum segment size to process in parallel
+     * @param packKeys  whether to pack keys into longs when their value ranges allow;
+     *                  if false, rows are always compared column by column
+     */
+    public ColumnarSort(int threshold, boolean packKeys) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.threshold = threshold;
+        this.packKeys = packKeys;
+        this.pool = ForkJoinPool.commonPool();
+        this.gather = new ParallelArgSort(threshold);
+    }
+
+    /**
+     * Ascending key on an int column.
+     */
+    public static SortKey asc(int[] column) {
+        return new SortKey(column, null, false);
+    }
+
+    /**
+     * Descending key on an int column.
+     */
+    public static SortKey desc(int[] column) {
+        return new SortKey(column, null, true);
+    }
+
+    /**
+     * Ascending key on a long column.
+     */
+    public static SortKey asc(long[] column) {
+        return new SortKey(null, column, false);
+    }
+
+    /**
+     * Descending key on a long column.
+     */
+    public static SortKey desc(long[] column) {
+        return new SortKey(null, column, true);
+    }
+
+    /**
+     * Returns the stable permutation that sorts the rows by the keys, most significant
+     * key first: row perm[0] comes first, then perm[1], ... No column is modified.
+     */
+    public int[] argsort(SortKey... keys) {
+        int n = checkKeys(keys);
+        int[] perm = new int[n];
+        if (n <= 1) {
+            return perm;
+        }
+        Packing packing = packKeys ? new Packing(keys) : null;
+        KeyLayout layout = layout(packing, n);
+
+        if (layout == KeyLayout.PACKED_WITH_INDEX) {
+            int indexBits = indexBits(n);
+            long[] rows = pack(keys, packing, n, indexBits);
+            new ParallelLongMergeSort(threshold).sort(rows);
+            long indexMask = (1L << indexBits) - 1;
+            pool.invoke(new ForkJoinSupport.RangeTask(0, n, threshold, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    perm[i] = (int) (rows[i] & indexMask);
+                }
+            }));
+            return perm;
+        }
+
+        pool.invoke(new ForkJoinSupport.RangeTask(0, n, threshold, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                perm[i] = i;
+            }
+        }));
+        RowComparator rows;
+        if (layout == KeyLayout.PACKED) {
+            long[] packed = pack(keys, packing, n, 0);
+            rows = (a, b) -> Long.compare(packed[a], packed[b]);
+        } else {
+            rows = columnComparator(keys);
+        }
+        pool.invoke(new RowMergeSortTask(rows, perm, new int[n], 0, n - 1, threshold));
+        return perm;
+    }
+
+    /**
+     * Sorts the rows by the keys (stable), reordering the key columns and the companion
+     * columns in place.
+     *
+     * @param keys    sort order, most significant key first
+     * @param columns companion columns of the same length: int[], long[], double[] or
+     *                an object array; a column may also appear among the keys
+     */
+    public void sort(SortKey[] keys, Object... columns) {
+        int n = checkKeys(keys);
+        Set<Object> all = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SortKey key : keys) {
+            all.add(key.column());
+        }
+        for (Object column : columns) {
+            if (column == null) {
+                throw new IllegalArgumentException("Column must not be null");
+            }
+            int length = columnLength(column);
+            if (length != n) {
+                throw new IllegalArgumentException("Column length " + length + " does not match key length " + n);
+            }
+            all.add(column);
+        }
+
+        int[] perm = argsort(keys);
+        for (Object column : all) {
+            reorder(perm, column);
+        }
+    }
+
+    private void reorder(int[] perm, Object column) {
+        if (column instanceof int[]) {
+            int[] values = (int[]) column;
+            System.arraycopy(gather.applyPermutation(perm, values), 0, values, 0, values.length);
+        } else if (column instanceof long[]) {
+            long[] values = (long[]) column;
+            System.arraycopy(gather.applyPermutation(perm, values), 0, values, 0, values.length);
+        } else if (column instanceof double[]) {
+            double[] values = (double[]) column;
+            System.arraycopy(gather.applyPermutation(perm, values), 0, values, 0, values.length);
+        } else {
+            Object[] values = (Object[]) column;
+            System.arraycopy(gather.applyPermutation(perm, values), 0, values, 0, values.length);
+        }
+    }
+
+    private static int columnLength(Object column) {
+        if (column instanceof int[]) {
+            return ((int[]) column).length;
+        }
+        if (column instanceof long[]) {
+            return ((long[]) column).length;
+        }
+        if (column instanceof double[]) {
+            return ((double[]) column).length;
+        }
+        if (column instanceof Object[]) {
+            return ((Object[]) column).length;
+        }
+        throw new IllegalArgumentException("Unsupported column type: " + column.getClass().getSimpleName());
+    }
+
+    /**
+     * Validates the keys and returns the common row count.
+     */
+    private static int checkKeys(SortKey[] keys) {
+        if (keys == null || keys.length == 0) {
+            throw new IllegalArgumentException("At least one sort key is required");
+        }
+        int n = -1;
+        for (SortKey key : keys) {
+            if (key == null) {
+                throw new IllegalArgumentException("Sort key must not be null");
+            }
+            if (n >= 0 && key.length() != n) {
+                throw new IllegalArgumentException("Key column length " + key.length() + " does not match " + n);
+            }
+            n = key.length();
+        }
+        return n;
+    }
+
+    /**
+     * Chooses the key layout for these columns (scans each key column for its range).
+     */
+    KeyLayout layout(SortKey... keys) {
+        int n = checkKeys(keys);
+        return layout(packKeys ? new Packing(keys) : null, n);
+    }
+
+    private static KeyLayout layout(Packing packing, int n) {
+        if (packing == null || packing.bits > 64) {
+            return KeyLayout.COLUMNS;
+        }
+        return packing.bits + indexBits(n) <= 64 ? KeyLayout.PACKED_WITH_INDEX : KeyLayout.PACKED;
+    }
+
+    private static int indexBits(int n) {
+        return n <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(n - 1);
+    }
+
+    /**
+     * Packs every row's key fields (most significant key in the high bits), followed by
+     * indexBits bits of row index if indexBits is not 0. The result is stored with its
+     * sign bit flipped, so signed long order equals the unsigned order of the packed keys.
+     */
+    private long[] pack(SortKey[] keys, Packing packing, int n, int indexBits) {
+        long[] packed = new long[n];
+        pool.invoke(new ForkJoinSupport.RangeTask(0, n, threshold, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                long row = 0;
+                for (int k = 0; k < keys.length; k++) {
+                    row = (row << packing.fieldBits[k]) | packing.field(keys[k], k, i);
+                }
+                if (indexBits > 0) {
+                    row = (row << indexBits) | i;
+                }
+                packed[i] = row ^ Long.MIN_VALUE;
+            }
+        }));
+        return packed;
+    }
+
+    /**
+     * Value ranges of the key columns of one sort. A key's field is the unsigned offset
+     * of the value from the column minimum (ascending) or from the column maximum
+     * (descending), and takes as many bits as the column's range.
+     */
+    private static final class Packing {
+        final long[] base;
+        final int[] fieldBits;
+        final int bits;
+
+        Packing(SortKey[] keys) {
+            base = new long[keys.length];
+            fieldBits = new int[keys.length];
+            int total = 0;
+            for (int k = 0; k < keys.length; k++) {
+                SortKey key = keys[k];
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (int i = 0, n = key.length(); i < n; i++) {
+                    long v = key.value(i);
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+                if (min > max) {
+                    min = max = 0; // no rows
+                }
+                base[k] = key.descending ? max : min;
+                fieldBits[k] = 64 - Long.numberOfLeadingZeros(max - min); // unsigned range
+                total += fieldBits[k];
+            }
+            bits = total;
+        }
+
+        long field(SortKey key, int k, int row) {
+            return key.descending ? base[k] - key.value(row) : key.value(row) - base[k];
+        }
+    }
+
+    private static RowComparator columnComparator(SortKey[] keys) {
+        if (keys.length == 1) {
+            SortKey key = keys[0];
+            return key.ints != null
+                    ? (a, b) -> key.sign * Integer.compare(key.ints[a], key.ints[b])
+                    : (a, b) -> key.sign * Long.compare(key.longs[a], key.longs[b]);
+        }
+        return (a, b) -> {
+            for (SortKey key : keys) {
+                int c = key.ints != null
+                        ? Integer.compare(key.ints[a], key.ints[b])
+                        : Long.compare(key.longs[a], key.longs[b]);
+                if (c != 0) {
+                    return key.sign * c;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * One key column with its direction. Create with {@link ColumnarSort#asc} or
+     * {@link ColumnarSort#desc}.
+     */
+    public static final class SortKey {
+        final int[] ints; // exactly one of ints and longs is set
+        final long[] longs;
+        final boolean descending;
+        final int sign;
+
+        private SortKey(int[] ints, long[] longs, boolean descending) {
+            if (ints == null && longs == null) {
+                throw new IllegalArgumentException("Key column must not be null");
+            }
+            this.ints = ints;
+            this.longs = longs;
+            this.descending = descending;
+            this.sign = descending ? -1 : 1;
+        }
+
+        int length() {
+            return ints != null ? ints.length : longs.length;
+        }
+
+        Object column() {
+            return ints != null ? ints : longs;
+        }
+
+        long value(int row) {
+            return ints != null ? ints[row] : longs[row];
+        }
+    }
+
+    /**
+     * Order of two rows by their indices.
+     */
+    interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Merge sort of the row indices perm[left..right] by a {@link RowComparator}. Same
+     * structure as ParallelMergeSort.MergeSortTask; ties take the left row first.
+     */
+    private static class RowMergeSortTask extends RecursiveAction {
+
+        private final RowComparator rows;
+        private final int[] perm;
+        private final int[] temp;
+        private final int left;
+        private final int right;
+        private final int threshold;
+
+        RowMergeSortTask(RowComparator rows, int[] perm, int[] temp, int left, int right, int threshold) {
+            this.rows = rows;
+            this.perm = perm;
+            this.temp = temp;
+            this.left = left;
+            this.right = right;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int length = right - left + 1;
+
+            if (length <= threshold) {
+                sequentialMergeSort(rows, perm, temp, left, right);
+                return;
+            }
+
+            int mid = left + (right - left) / 2;
+            invokeAll(new RowMergeSortTask(rows, perm, temp, left, mid, threshold),
+                    new RowMergeSortTask(rows, perm, temp, mid + 1, right, threshold));
+
+            merge(rows, perm, temp, left, mid, right);
+        }
+
+        private static void sequentialMergeSort(RowComparator rows, int[] perm, int[] temp, int left, int right) {
+            if (left < right) {
+                int mid = left + (right - left) / 2;
+                sequentialMergeSort(rows, perm, temp, left, mid);
+                sequentialMergeSort(rows, perm, temp, mid + 1, right);
+                merge(rows, perm, temp, left, mid, right);
+            }
+        }
+
+        private static void merge(RowComparator rows, int[] perm, int[] temp, int left, int mid, int right) {
+            if (rows.compare(perm[mid], perm[mid + 1]) <= 0) {
+                return; // halves already in order
+            }
+            System.arraycopy(perm, left, temp, left, right - left + 1);
+
+            int i = left;
+            int j = mid + 1;
+            int k = left;
+
+            while (i <= mid && j <= right) {
+                if (rows.compare(temp[i], temp[j]) <= 0) {
+                    perm[k++] = temp[i++];
+                } else {
+                    perm[k++] = temp[j++];
+                }
+            }
+
+            while (i <= mid) {
+                perm[k++] = temp[i++];
+            }
+
+            while (j <= right) {
+                perm[k++] = temp[j++];
+            }
+        }
+    }
+}
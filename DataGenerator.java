@@ -0,0 +1,17 @@
+package algorithms;
+
+import java.util.Random;
+
+/**
+ * Produces benchmark/test input of a given size from a caller-supplied random source,
+ * so the same seed always produces the same array.
+ */
+public interface DataGenerator {
+
+    /**
+     * Display name, also used to look the generator up in {@link DataGenerators}.
+     */
+    String name();
+
+    int[] generate(int size, Random random);
+}
@@ -0,0 +1,255 @@
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded input distributions for the benchmarks, tests and GUI.
+ * <p>
+ * Besides uniform random and reverse-sorted data, this covers the shapes that show
+ * up in production: heavy duplication and Zipf skew, nearly sorted data with a few
+ * random swaps, organ-pipe (ascending then descending), sawtooth (many short sorted
+ * runs) and inputs with only a few distinct values.
+ * <p>
+ * Generators are registered by name in display order. Additional ones can be plugged
+ * in with {@link #register(DataGenerator)} and are then offered everywhere the
+ * built-in ones are.
+ */
+public final class DataGenerators {
+
+    private static final Map<String, DataGenerator> REGISTRY = new LinkedHashMap<>();
+
+    static {
+        register(random());
+        register(reverse());
+        register(sorted());
+        register(nearlySorted(0.01));
+        register(zipf(1.1));
+        register(duplicates());
+        register(fewUnique(8));
+        register(organPipe());
+        register(sawtooth(256));
+    }
+
+    private DataGenerators() {
+    }
+
+    /**
+     * Adds (or replaces) a generator under its name.
+     */
+    public static synchronized void register(DataGenerator generator) {
+        REGISTRY.put(generator.name(), generator);
+    }
+
+    /**
+     * Names of all registered generators, in registration order.
+     */
+    public static synchronized List<String> names() {
+        return new ArrayList<>(REGISTRY.keySet());
+    }
+
+    public static synchronized DataGenerator forName(String name) {
+        DataGenerator generator = REGISTRY.get(name);
+        if (generator == null) {
+            throw new IllegalArgumentException("Unknown data pattern: " + name);
+        }
+        return generator;
+    }
+
+    /**
+     * Generates an array with the named generator and a fresh Random(seed).
+     */
+    public static int[] generate(String name, int size, long seed) {
+        return forName(name).generate(size, new Random(seed));
+    }
+
+    /**
+     * Uniformly random 32-bit values.
+     */
+    public static DataGenerator random() {
+        return generator("Random", (size, random) -> {
+            int[] array = new int[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = random.nextInt();
+            }
+            return array;
+        });
+    }
+
+    /**
+     * Random values sorted in descending order.
+     */
+    public static DataGenerator reverse() {
+        return generator("Reverse", (size, random) -> {
+            int[] array = sortedRandom(size, random);
+            reverse(array, 0, size);
+            return array;
+        });
+    }
+
+    /**
+     * Random values already in ascending order.
+     */
+    public static DataGenerator sorted() {
+        return generator("Sorted", DataGenerators::sortedRandom);
+    }
+
+    /**
+     * Ascending data where the given fraction of positions take part in a random swap.
+     */
+    public static DataGenerator nearlySorted(double swapFraction) {
+        return generator("Nearly sorted", (size, random) -> {
+            int[] array = sortedRandom(size, random);
+            long swaps = Math.round(size * swapFraction / 2);
+            for (long s = 0; s < swaps; s++) {
+                swap(array, random.nextInt(size), random.nextInt(size));
+            }
+            return array;
+        });
+    }
+
+    /**
+     * Zipf-distributed values: about size/100 distinct keys, where the key of rank r
+     * occurs with probability proportional to 1 / r^exponent.
+     */
+    public static DataGenerator zipf(double exponent) {
+        return generator("Zipf", (size, random) -> {
+            int distinct = Math.max(1, size / 100);
+            double[] cdf = new double[distinct];
+            int[] keys = new int[distinct];
+            double sum = 0;
+            for (int r = 0; r < distinct; r++) {
+                sum += 1.0 / Math.pow(r + 1, exponent);
+                cdf[r] = sum;
+                keys[r] = random.nextInt(); // rank does not correlate with key order
+            }
+
+            int[] array = new int[size];
+            for (int i = 0; i < size; i++) {
+                int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+                array[i] = keys[rank >= 0 ? rank : Math.min(distinct - 1, -rank - 1)];
+            }
+            return array;
+        });
+    }
+
+    /**
+     * Heavily duplicated values: about sqrt(size) distinct keys, uniformly chosen.
+     */
+    public static DataGenerator duplicates() {
+        return generator("Duplicates", (size, random) -> {
+            int distinct = Math.max(1, (int) Math.sqrt(size));
+            int[] array = new int[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = random.nextInt(distinct);
+            }
+            return array;
+        });
+    }
+
+    /**
+     * Only k distinct values (k must be at least 1).
+     */
+    public static DataGenerator fewUnique(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Number of distinct values must be positive");
+        }
+        return generator("Few unique", (size, random) -> {
+            int[] values = new int[k];
+            for (int v = 0; v < k; v++) {
+                values[v] = random.nextInt();
+            }
+            int[] array = new int[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = values[random.nextInt(k)];
+            }
+            return array;
+        });
+    }
+
+    /**
+     * Ascending first half followed by a descending second half.
+     */
+    public static DataGenerator organPipe() {
+        return generator("Organ pipe", (size, random) -> {
+            int[] array = sortedRandom(size, random);
+            int[] result = new int[size];
+            // even ranks go up the first half, odd ranks come back down the second
+            int front = 0;
+            int back = size - 1;
+            for (int i = 0; i < size; i++) {
+                if ((i & 1) == 0) {
+                    result[front++] = array[i];
+                } else {
+                    result[back--] = array[i];
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Consecutive ascending runs of the given length, each over the full value range.
+     */
+    public static DataGenerator sawtooth(int runLength) {
+        return generator("Sawtooth", (size, random) -> {
+            int[] array = new int[size];
+            for (int i = 0; i < size; i++) {
+                array[i] = random.nextInt();
+            }
+            for (int from = 0; from < size; from += runLength) {
+                Arrays.sort(array, from, Math.min(size, from + runLength));
+            }
+            return array;
+        });
+    }
+
+    private static int[] sortedRandom(int size, Random random) {
+        int[] array = new int[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = random.nextInt();
+        }
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static void reverse(int[] array, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            swap(array, i, j);
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    /**
+     * Body of a generator created with {@link #generator(String, Body)}.
+     */
+    private interface Body {
+        int[] generate(int size, Random random);
+    }
+
+    private static DataGenerator generator(String name, Body body) {
+        return new DataGenerator() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public int[] generate(int size, Random random) {
+                if (size < 0) {
+                    throw new IllegalArgumentException("Size must not be negative");
+                }
+                return body.generate(size, random);
+            }
+        };
+    }
+}
@@ -0,0 +1,4 @@
+package algorithms;
+public interface DoubleSortAlgorithm {
+    void sort(double[] array);
+}
@@ -0,0 +1,382 @@
+package algorithms;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * External-memory merge sort for binary files of ints or longs that do not fit on the heap.
+ * <p>
+ * Phase 1 reads the input in chunks of {@code chunkElements}, sorts each chunk in memory
+ * with {@link ParallelMergeSort} (or {@link ParallelLongMergeSort}) and spills it to a
+ * temporary run file. Phase 2 merges the runs with a heap-based k-way merge over buffered
+ * NIO channels, at most {@code fanIn} runs at a time; if there are more runs than that,
+ * intermediate merge passes produce longer runs until one final pass writes the output.
+ * <p>
+ * Files are raw arrays of fixed-width values in the configured byte order (big-endian
+ * by default, like DataOutputStream). Time spent in channel reads/writes, time spent
+ * sorting chunks, and the number of bytes written to run files are reported separately
+ * in {@link Stats}.
+ */
+public class ExternalMergeSort {
+
+    private static final int IO_BUFFER_BYTES = 1 << 20;
+
+    private final int chunkElements;
+    private final int fanIn;
+    private final Path tempDir;
+    private final ByteOrder byteOrder;
+    private final int threshold;
+
+    /**
+     * Creates an ExternalMergeSort with big-endian files and the default parallel threshold.
+     *
+     * @param chunkElements number of values sorted in memory per run
+     * @param fanIn         maximum number of runs merged at once (at least 2)
+     * @param tempDir       directory for run files, or null for the system temp directory
+     */
+    public ExternalMergeSort(int chunkElements, int fanIn, Path tempDir) {
+        this(chunkElements, fanIn, tempDir, ByteOrder.BIG_ENDIAN, 10_000);
+    }
+
+    /**
+     * Creates an ExternalMergeSort.
+     *
+     * @param chunkElements number of values sorted in memory per run
+     * @param fanIn         maximum number of runs merged at once (at least 2)
+     * @param tempDir       directory for run files, or null for the system temp directory
+     * @param byteOrder     byte order of input, output and run files
+     * @param threshold     parallel threshold of the in-memory chunk sort
+     */
+    public ExternalMergeSort(int chunkElements, int fanIn, Path tempDir, ByteOrder byteOrder, int threshold) {
+        if (chunkElements <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("Fan-in must be at least 2");
+        }
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.chunkElements = chunkElements;
+        this.fanIn = fanIn;
+        this.tempDir = tempDir;
+        this.byteOrder = byteOrder;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Command-line entry point:
+     * {@code java algorithms.ExternalMergeSort int|long <input> <output> [chunkElements] [fanIn] [tempDir]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: ExternalMergeSort int|long <input> <output> [chunkElements] [fanIn] [tempDir]");
+            return;
+        }
+        int chunk = args.length > 3 ? Integer.parseInt(args[3]) : 16_000_000;
+        int fanIn = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+        Path tempDir = args.length > 5 ? Path.of(args[5]) : null;
+
+        ExternalMergeSort sorter = new ExternalMergeSort(chunk, fanIn, tempDir);
+        long start = System.nanoTime();
+        Stats stats = "long".equals(args[0])
+                ? sorter.sortLongs(Path.of(args[1]), Path.of(args[2]))
+                : sorter.sortInts(Path.of(args[1]), Path.of(args[2]));
+        System.out.printf("Total: %.1f ms (%s)%n", (System.nanoTime() - start) / 1_000_000.0, stats);
+    }
+
+    /**
+     * Sorts a file of ints into output.
+     */
+    public Stats sortInts(Path input, Path output) throws IOException {
+        return sort(input, output, Integer.BYTES);
+    }
+
+    /**
+     * Sorts a file of longs into output.
+     */
+    public Stats sortLongs(Path input, Path output) throws IOException {
+        return sort(input, output, Long.BYTES);
+    }
+
+    private Stats sort(Path input, Path output, int width) throws IOException {
+        long size = Files.size(input);
+        if (size % width != 0) {
+            throw new IOException("File size " + size + " is not a multiple of " + width + " bytes: " + input);
+        }
+
+        Stats stats = new Stats();
+        List<Path> created = new ArrayList<>(); // every run file, so a failed pass leaks none
+        try {
+            createRuns(input, size / width, width, created, stats);
+            List<Path> runs = new ArrayList<>(created);
+
+            if (runs.isEmpty()) {
+                Files.write(output, new byte[0]);
+                return stats;
+            }
+
+            // Intermediate passes until one final merge can produce the output
+            while (runs.size() > fanIn) {
+                List<Path> next = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += fanIn) {
+                    List<Path> group = runs.subList(i, Math.min(runs.size(), i + fanIn));
+                    Path merged = createRunFile();
+                    created.add(merged);
+                    next.add(merged);
+                    stats.bytesSpilled += mergeRuns(group, merged, width, stats);
+                    deleteAll(group);
+                }
+                runs = next;
+                stats.mergePasses++;
+            }
+            mergeRuns(runs, output, width, stats);
+            stats.mergePasses++;
+            return stats;
+        } finally {
+            deleteAll(created);
+        }
+    }
+
+    /**
+     * Phase 1: reads chunkElements values at a time, sorts them and writes each as a run.
+     */
+    private void createRuns(Path input, long totalElements, int width, List<Path> runs, Stats stats) throws IOException {
+        int chunk = (int) Math.min(chunkElements, totalElements);
+        int[] ints = width == Integer.BYTES ? new int[chunk] : null;
+        long[] longs = width == Long.BYTES ? new long[chunk] : null;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES - IO_BUFFER_BYTES % width).order(byteOrder);
+        ParallelMergeSort intSorter = new ParallelMergeSort(threshold);
+        ParallelLongMergeSort longSorter = new ParallelLongMergeSort(threshold);
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            long remaining = totalElements;
+            while (remaining > 0) {
+                int count = (int) Math.min(chunk, remaining);
+
+                // read
+                buffer.clear().flip();
+                for (int i = 0; i < count; i++) {
+                    if (!buffer.hasRemaining()) {
+                        fill(in, buffer, (long) (count - i) * width, stats);
+                    }
+                    if (ints != null) {
+                        ints[i] = buffer.getInt();
+                    } else {
+                        longs[i] = buffer.getLong();
+                    }
+                }
+                // the chunk ends on an element boundary and the buffer never over-reads
+                remaining -= count;
+
+                // sort (the last chunk may be shorter than the buffer)
+                if (ints != null && count < ints.length) {
+                    ints = Arrays.copyOf(ints, count);
+                } else if (longs != null && count < longs.length) {
+                    longs = Arrays.copyOf(longs, count);
+                }
+                long start = System.nanoTime();
+                if (ints != null) {
+                    intSorter.sort(ints);
+                } else {
+                    longSorter.sort(longs);
+                }
+                stats.sortNanos += System.nanoTime() - start;
+
+                // spill
+                Path run = createRunFile();
+                runs.add(run);
+                try (FileChannel out = FileChannel.open(run, StandardOpenOption.WRITE)) {
+                    buffer.clear();
+                    for (int i = 0; i < count; i++) {
+                        if (buffer.remaining() < width) {
+                            drain(out, buffer, stats);
+                        }
+                        if (ints != null) {
+                            buffer.putInt(ints[i]);
+                        } else {
+                            buffer.putLong(longs[i]);
+                        }
+                    }
+                    drain(out, buffer, stats);
+                }
+                stats.bytesSpilled += (long) count * width;
+                stats.runs++;
+            }
+        }
+    }
+
+    /**
+     * Phase 2: k-way merge of the given runs into target. Returns the number of bytes written.
+     */
+    private long mergeRuns(List<Path> runs, Path target, int width, Stats stats) throws IOException {
+        int perRunBuffer = Math.max(width, (IO_BUFFER_BYTES / (runs.size() + 1)) / width * width);
+        List<RunReader> readers = new ArrayList<>();
+        PriorityQueue<RunReader> heap = new PriorityQueue<>(runs.size(), (a, b) -> {
+            int c = Long.compare(a.current, b.current);
+            return c != 0 ? c : Integer.compare(a.index, b.index); // earlier run first on ties
+        });
+
+        long written = 0;
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = 0; i < runs.size(); i++) {
+                RunReader reader = new RunReader(runs.get(i), i, width, perRunBuffer, byteOrder);
+                readers.add(reader);
+                if (reader.advance(stats)) {
+                    heap.add(reader);
+                }
+            }
+
+            ByteBuffer outBuffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES - IO_BUFFER_BYTES % width).order(byteOrder);
+            while (!heap.isEmpty()) {
+                RunReader smallest = heap.poll();
+                if (outBuffer.remaining() < width) {
+                    drain(out, outBuffer, stats);
+                }
+                if (width == Integer.BYTES) {
+                    outBuffer.putInt((int) smallest.current);
+                } else {
+                    outBuffer.putLong(smallest.current);
+                }
+                written += width;
+                if (smallest.advance(stats)) {
+                    heap.add(smallest);
+                }
+            }
+            drain(out, outBuffer, stats);
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Refills buffer from the channel with at most maxBytes bytes; buffer is left flipped for reading.
+     */
+    private static void fill(FileChannel in, ByteBuffer buffer, long maxBytes, Stats stats) throws IOException {
+        buffer.clear();
+        if (maxBytes < buffer.capacity()) {
+            buffer.limit((int) maxBytes);
+        }
+        long start = System.nanoTime();
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        stats.ioNanos += System.nanoTime() - start;
+        buffer.flip();
+    }
+
+    /**
+     * Writes out everything in buffer and clears it.
+     */
+    private static void drain(FileChannel out, ByteBuffer buffer, Stats stats) throws IOException {
+        buffer.flip();
+        long start = System.nanoTime();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        stats.ioNanos += System.nanoTime() - start;
+        buffer.clear();
+    }
+
+    private Path createRunFile() throws IOException {
+        return tempDir == null
+                ? Files.createTempFile("run-", ".bin")
+                : Files.createTempFile(tempDir, "run-", ".bin");
+    }
+
+    private static void deleteAll(List<Path> paths) throws IOException {
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Buffered sequential reader over one sorted run; current holds the value last read.
+     */
+    private static final class RunReader {
+        final int index;
+        final int width;
+        final FileChannel channel;
+        final ByteBuffer buffer;
+        long remaining;
+        long current;
+
+        RunReader(Path run, int index, int width, int bufferBytes, ByteOrder order) throws IOException {
+            this.index = index;
+            this.width = width;
+            this.channel = FileChannel.open(run, StandardOpenOption.READ);
+            this.buffer = ByteBuffer.allocateDirect(bufferBytes).order(order);
+            this.buffer.flip();
+            this.remaining = channel.size();
+        }
+
+        boolean advance(Stats stats) throws IOException {
+            if (!buffer.hasRemaining()) {
+                if (remaining == 0) {
+                    return false;
+                }
+                fill(channel, buffer, remaining, stats);
+                remaining -= buffer.remaining();
+            }
+            current = width == Integer.BYTES ? buffer.getInt() : buffer.getLong();
+            return true;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Timings and volumes of one external sort. Merge time includes its I/O; ioNanos
+     * is the total time spent in channel reads and writes across both phases.
+     */
+    public static final class Stats {
+        long ioNanos;
+        long sortNanos;
+        long bytesSpilled;
+        int runs;
+        int mergePasses;
+
+        public long getIoNanos() {
+            return ioNanos;
+        }
+
+        public long getSortNanos() {
+            return sortNanos;
+        }
+
+        public long getBytesSpilled() {
+            return bytesSpilled;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public int getMergePasses() {
+            return mergePasses;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("io=%.1f ms, sort=%.1f ms, spilled=%d bytes, runs=%d, merge passes=%d",
+                    ioNanos / 1_000_000.0, sortNanos / 1_000_000.0, bytesSpilled, runs, mergePasses);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package algorithms;
+public interface FloatSortAlgorithm {
+    void sort(float[] array);
+}
@@ -0,0 +1,59 @@
+package algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Small Fork/Join helpers shared by the parallel algorithms of this package.
+ */
+final class ForkJoinSupport {
+
+    private ForkJoinSupport() {
+    }
+
+    /**
+     * Runs task in pool and returns its result. If the caller already is a worker of the
+     * pool (for example inside a sort task), the task runs directly instead of blocking
+     * the worker on an external invoke.
+     */
+    static <T> T invoke(ForkJoinPool pool, ForkJoinTask<T> task) {
+        return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+    }
+
+    /**
+     * Body of a {@link RangeTask}: processes indices [from, to).
+     */
+    interface RangeBody {
+        void apply(int from, int to);
+    }
+
+    /**
+     * RecursiveAction that splits [from, to) in halves until a piece is at most
+     * threshold long, then runs the body on it.
+     */
+    static class RangeTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final RangeBody body;
+
+        RangeTask(int from, int to, int threshold, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                body.apply(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, threshold, body), new RangeTask(mid, to, threshold, body));
+        }
+    }
+}
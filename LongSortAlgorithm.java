@@ -0,0 +1,4 @@
+package algorithms;
+public interface LongSortAlgorithm {
+    void sort(long[] array);
+}
@@ -0,0 +1,18 @@
+package algorithms;
+
+/**
+ * Inner loop of a two-way merge of sorted int runs.
+ * <p>
+ * Implementations merge src[lo1..hi1] and src[lo2..hi2] (inclusive bounds, either
+ * run may be empty) into dst starting at dstLo. src and dst must not overlap in the
+ * written range. See {@link MergeKernels} for the available kernels.
+ */
+public interface MergeKernel {
+
+    /**
+     * Short name used for runtime selection ("scalar", "branchless", "vector").
+     */
+    String name();
+
+    void merge(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int dstLo);
+}
@@ -0,0 +1,125 @@
+package algorithms;
+
+/**
+ * Available {@link MergeKernel} implementations and runtime selection between them.
+ * <ul>
+ *   <li>{@link #SCALAR}: the classic branchy loop ({@code if (a <= b) ...}).</li>
+ *   <li>{@link #BRANCHLESS}: the same loop written as conditional moves, so random data
+ *       no longer mispredicts on every other element.</li>
+ *   <li>{@code vector}: a bitonic merge network on {@code jdk.incubator.vector.IntVector}
+ *       ({@code vector/VectorMergeKernel.java}). It is loaded reflectively and is only
+ *       available when the JVM runs with {@code --add-modules jdk.incubator.vector}.</li>
+ * </ul>
+ * {@link #forName(String)} falls back to {@link #BRANCHLESS} when the vector kernel is
+ * requested but not available. The system property {@code parallelmergesort.mergeKernel}
+ * picks the kernel for {@link #fromSystemProperty()}.
+ */
+public final class MergeKernels {
+
+    public static final MergeKernel SCALAR = new MergeKernel() {
+        @Override
+        public String name() {
+            return "scalar";
+        }
+
+        @Override
+        public void merge(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int dstLo) {
+            ParallelMergeSort.MergeTask.mergeRuns(src, lo1, hi1, lo2, hi2, dst, dstLo);
+        }
+    };
+
+    public static final MergeKernel BRANCHLESS = new MergeKernel() {
+        @Override
+        public String name() {
+            return "branchless";
+        }
+
+        @Override
+        public void merge(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int dstLo) {
+            mergeBranchless(src, lo1, hi1, lo2, hi2, dst, dstLo);
+        }
+    };
+
+    private static final String VECTOR_CLASS = "algorithms.VectorMergeKernel";
+
+    private static volatile MergeKernel vector;
+    private static volatile boolean vectorProbed;
+
+    private MergeKernels() {
+    }
+
+    /**
+     * Returns the Vector API kernel, or null if it is not compiled in or the
+     * jdk.incubator.vector module is not available in this JVM.
+     */
+    public static MergeKernel vector() {
+        if (!vectorProbed) {
+            synchronized (MergeKernels.class) {
+                if (!vectorProbed) {
+                    vector = loadVector();
+                    vectorProbed = true;
+                }
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Kernel by name; "vector" falls back to branchless if unavailable.
+     */
+    public static MergeKernel forName(String name) {
+        switch (name) {
+            case "scalar":
+                return SCALAR;
+            case "branchless":
+                return BRANCHLESS;
+            case "vector": {
+                MergeKernel kernel = vector();
+                return kernel != null ? kernel : BRANCHLESS;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown merge kernel: " + name);
+        }
+    }
+
+    /**
+     * Kernel named by the system property parallelmergesort.mergeKernel (default scalar).
+     */
+    public static MergeKernel fromSystemProperty() {
+        return forName(System.getProperty("parallelmergesort.mergeKernel", "scalar"));
+    }
+
+    private static MergeKernel loadVector() {
+        try {
+            Object kernel = Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+            return (MergeKernel) kernel;
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Merge loop without data-dependent branches in the body: the element and both
+     * index increments are selected with conditional expressions the JIT turns into
+     * conditional moves.
+     */
+    static void mergeBranchless(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int k) {
+        int i = lo1;
+        int j = lo2;
+
+        while (i <= hi1 && j <= hi2) {
+            int a = src[i];
+            int b = src[j];
+            int takeLeft = a <= b ? 1 : 0;
+            dst[k++] = takeLeft != 0 ? a : b;
+            i += takeLeft;
+            j += 1 - takeLeft;
+        }
+
+        if (i <= hi1) {
+            System.arraycopy(src, i, dst, k, hi1 - i + 1);
+        } else if (j <= hi2) {
+            System.arraycopy(src, j, dst, k, hi2 - j + 1);
+        }
+    }
+}
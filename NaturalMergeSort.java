@@ -0,0 +1,273 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Adaptive (natural) merge sort using Java's Fork/Join framework.
+ * <p>
+ * Instead of splitting the array blindly in halves, the input is scanned once for
+ * natural runs: non-decreasing runs are kept as they are and strictly descending
+ * runs are reversed in place (strictness keeps equal elements in order). Runs shorter
+ * than {@link #MIN_RUN} are extended with binary insertion sort, as in TimSort.
+ * <p>
+ * The scan runs in parallel: the array is cut into about four blocks per worker, each
+ * block finds and extends its own runs, and runs that continue across a block boundary
+ * are joined again. Chains of strictly descending blocks are found first and reversed
+ * as a whole, so a reverse-sorted input still becomes a single run.
+ * <p>
+ * The runs are then merged pairwise as a balanced tree of Fork/Join tasks, with merges
+ * above the threshold split by {@link ParallelMergeSort.MergeTask}. Already-sorted and
+ * reverse-sorted inputs form a single run and finish in O(n); inputs made of a few
+ * concatenated runs need only O(n log r) work for r runs.
+ */
+public class NaturalMergeSort implements SortAlgorithm {
+
+    /**
+     * Minimum run length; shorter natural runs are extended with insertion sort.
+     */
+    static final int MIN_RUN = 32;
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a NaturalMergeSort with a default threshold.
+     */
+    public NaturalMergeSort() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a NaturalMergeSort with a custom threshold.
+     *
+     * @param threshold minimum segment size to merge in parallel
+     */
+    public NaturalMergeSort(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.threshold = threshold;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    @Override
+    public void sort(int[] array) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+
+        int[] runStarts = findRuns(array, pool, blockSize(array.length));
+        int runCount = runStarts.length - 1;
+        if (runCount == 1) {
+            return; // already sorted (or reversed into order)
+        }
+
+        int[] temp = new int[array.length];
+        pool.invoke(new RunMergeTask(array, temp, runStarts, 0, runCount, threshold));
+    }
+
+    /**
+     * Block length for the parallel run scan: about four blocks per worker, but never
+     * below the threshold.
+     */
+    private int blockSize(int n) {
+        long blocks = 4L * pool.getParallelism();
+        return (int) Math.max(Math.max(threshold, MIN_RUN), (n + blocks - 1) / blocks);
+    }
+
+    /**
+     * Finds the natural runs of the whole array, scanning blocks of blockSize elements
+     * in parallel. Reverses descending runs and extends short ones like
+     * {@link #findRuns(int[], int, int)}. Returns the run start offsets followed by
+     * array.length as a sentinel.
+     */
+    static int[] findRuns(int[] array, ForkJoinPool pool, int blockSize) {
+        int n = array.length;
+        int blocks = (int) (((long) n + blockSize - 1) / blockSize);
+        if (blocks <= 1) {
+            return findRuns(array, 0, n);
+        }
+
+        // strictly descending blocks; read only, so the boundaries can be compared afterwards
+        boolean[] descending = new boolean[blocks];
+        pool.invoke(new ForkJoinSupport.RangeTask(0, blocks, 1, (from, to) -> {
+            for (int b = from; b < to; b++) {
+                int lo = b * blockSize;
+                int hi = lo + Math.min(n - lo, blockSize);
+                int i = lo + 1;
+                while (i < hi && array[i] < array[i - 1]) {
+                    i++;
+                }
+                descending[b] = i == hi;
+            }
+        }));
+
+        // segments: a chain of descending blocks that keeps descending across its
+        // boundaries (one run, reversed as a whole), or a single other block
+        int[] segmentStart = new int[blocks + 1];
+        boolean[] reversed = new boolean[blocks];
+        int segments = 0;
+        for (int b = 0; b < blocks; segments++) {
+            segmentStart[segments] = b * blockSize;
+            reversed[segments] = descending[b];
+            b++;
+            if (descending[b - 1]) {
+                while (b < blocks && descending[b] && array[b * blockSize - 1] > array[b * blockSize]) {
+                    b++;
+                }
+            }
+        }
+        segmentStart[segments] = n;
+
+        int[][] segmentRuns = new int[segments][];
+        pool.invoke(new ForkJoinSupport.RangeTask(0, segments, 1, (from, to) -> {
+            for (int s = from; s < to; s++) {
+                int lo = segmentStart[s];
+                int hi = segmentStart[s + 1];
+                if (reversed[s]) {
+                    int last = hi - 1;
+                    new ForkJoinSupport.RangeTask(0, (hi - lo) / 2, blockSize, (first, end) -> {
+                        for (int i = first; i < end; i++) {
+                            int tmp = array[lo + i];
+                            array[lo + i] = array[last - i];
+                            array[last - i] = tmp;
+                        }
+                    }).invoke();
+                    segmentRuns[s] = new int[]{lo, hi};
+                } else {
+                    segmentRuns[s] = findRuns(array, lo, hi);
+                }
+            }
+        }));
+
+        // concatenate, joining runs that continue across a segment boundary
+        int total = 0;
+        for (int[] runs : segmentRuns) {
+            total += runs.length - 1;
+        }
+        int[] starts = new int[total + 1];
+        int count = 0;
+        for (int[] runs : segmentRuns) {
+            for (int r = 0; r < runs.length - 1; r++) {
+                int start = runs[r];
+                if (r > 0 || count == 0 || array[start - 1] > array[start]) {
+                    starts[count++] = start;
+                }
+            }
+        }
+        starts[count] = n;
+        return Arrays.copyOf(starts, count + 1);
+    }
+
+    /**
+     * Scans array[from..to) for natural runs, reversing descending runs and extending
+     * short ones. Returns the run start offsets followed by to as a sentinel.
+     */
+    static int[] findRuns(int[] array, int from, int to) {
+        int[] starts = new int[16];
+        int count = 0;
+
+        int lo = from;
+        while (lo < to) {
+            if (count + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[count++] = lo;
+
+            int hi = lo + 1;
+            if (hi < to) {
+                if (array[hi] < array[lo]) {
+                    // strictly descending
+                    while (hi + 1 < to && array[hi + 1] < array[hi]) {
+                        hi++;
+                    }
+                    reverse(array, lo, hi);
+                } else {
+                    while (hi + 1 < to && array[hi + 1] >= array[hi]) {
+                        hi++;
+                    }
+                }
+                hi++;
+            }
+
+            // Extend short runs so random data does not produce n/2 tiny runs
+            int forced = lo + Math.min(to - lo, MIN_RUN);
+            if (hi < forced) {
+                ParallelMergeSort.binaryInsertionSort(array, lo, hi, forced);
+                hi = forced;
+            }
+            lo = hi;
+        }
+
+        starts[count] = to;
+        return Arrays.copyOf(starts, count + 1);
+    }
+
+    /**
+     * Reverses array[lo..hi] in place.
+     */
+    private static void reverse(int[] array, int lo, int hi) {
+        while (lo < hi) {
+            int tmp = array[lo];
+            array[lo++] = array[hi];
+            array[hi--] = tmp;
+        }
+    }
+
+    /**
+     * RecursiveAction task merging runs [fromRun, toRun) into one sorted range.
+     */
+    private static class RunMergeTask extends RecursiveAction {
+
+        private final int[] array;
+        private final int[] temp;
+        private final int[] runStarts;
+        private final int fromRun;
+        private final int toRun;
+        private final int threshold;
+
+        RunMergeTask(int[] array, int[] temp, int[] runStarts, int fromRun, int toRun, int threshold) {
+            this.array = array;
+            this.temp = temp;
+            this.runStarts = runStarts;
+            this.fromRun = fromRun;
+            this.toRun = toRun;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRun - fromRun <= 1) {
+                return;
+            }
+
+            int midRun = (fromRun + toRun) >>> 1;
+            int left = runStarts[fromRun];
+            int mid = runStarts[midRun] - 1;
+            int right = runStarts[toRun] - 1;
+            int length = right - left + 1;
+
+            RunMergeTask leftTask = new RunMergeTask(array, temp, runStarts, fromRun, midRun, threshold);
+            RunMergeTask rightTask = new RunMergeTask(array, temp, runStarts, midRun, toRun, threshold);
+            if (length <= threshold) {
+                leftTask.compute();
+                rightTask.compute();
+            } else {
+                invokeAll(leftTask, rightTask);
+            }
+
+            if (array[mid] <= array[mid + 1]) {
+                return; // halves are already in order
+            }
+
+            System.arraycopy(array, left, temp, left, length);
+            if (length <= threshold) {
+                ParallelMergeSort.MergeTask.mergeRuns(temp, left, mid, mid + 1, right, array, left);
+            } else {
+                new ParallelMergeSort.MergeTask(temp, left, mid, mid + 1, right, array, left, threshold).invoke();
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Key-index ("argsort") mode of the Fork/Join merge sort.
+ * <p>
+ * Instead of moving the keys, {@link #argsort(int[])} returns the permutation of
+ * indices that would sort them: keys[perm[0]] &lt;= keys[perm[1]] &lt;= ... The key
+ * array is left untouched. Equal keys keep their original index order (stable), so
+ * argsorting by a secondary key and then by a primary key gives a multi-key order.
+ * <p>
+ * The {@code applyPermutation} helpers gather companion columns in parallel
+ * (result[i] = column[perm[i]]), keeping parallel columns aligned without building
+ * row objects.
+ */
+public class ParallelArgSort {
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a ParallelArgSort with a default threshold.
+     */
+    public ParallelArgSort() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a ParallelArgSort with a custom threshold.
+     *
+     * @param threshold minimum segment size to process in parallel
+     */
+    public ParallelArgSort(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.threshold = threshold;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Returns the stable sorting permutation of keys. The key array is not modified.
+     */
+    public int[] argsort(int[] keys) {
+        int n = keys.length;
+        int[] perm = new int[n];
+        pool.invoke(new ForkJoinSupport.RangeTask(0, n, threshold, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                perm[i] = i;
+            }
+        }));
+        if (n > 1) {
+            pool.invoke(new IndexMergeSortTask(keys, perm, new int[n], 0, n - 1, threshold));
+        }
+        return perm;
+    }
+
+    /**
+     * Returns column reordered by perm: result[i] = column[perm[i]].
+     */
+    public int[] applyPermutation(int[] perm, int[] column) {
+        checkLengths(perm.length, column.length);
+        int[] result = new int[perm.length];
+        pool.invoke(new ForkJoinSupport.RangeTask(0, perm.length, threshold, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = column[perm[i]];
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Returns column reordered by perm: result[i] = column[perm[i]].
+     */
+    public long[] applyPermutation(int[] perm, long[] column) {
+        checkLengths(perm.length, column.length);
+        long[] result = new long[perm.length];
+        pool.invoke(new ForkJoinSupport.RangeTask(0, perm.length, threshold, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = column[perm[i]];
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Returns column reordered by perm: result[i] = column[perm[i]].
+     */
+    public double[] applyPermutation(int[] perm, double[] column) {
+        checkLengths(perm.length, column.length);
+        double[] result = new double[perm.length];
+        pool.invoke(new ForkJoinSupport.RangeTask(0, perm.length, threshold, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = column[perm[i]];
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Returns column reordered by perm: result[i] = column[perm[i]].
+     */
+    public <T> T[] applyPermutation(int[] perm, T[] column) {
+        checkLengths(perm.length, column.length);
+        T[] result = Arrays.copyOf(column, perm.length);
+        pool.invoke(new ForkJoinSupport.RangeTask(0, perm.length, threshold, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = column[perm[i]];
+            }
+        }));
+        return result;
+    }
+
+    private static void checkLengths(int permLength, int columnLength) {
+        if (permLength != columnLength) {
+            throw new IllegalArgumentException("Permutation length " + permLength
+                    + " does not match column length " + columnLength);
+        }
+    }
+
+    /**
+     * Merge sort of the index array perm[left..right] by keys[perm[i]]. Same structure
+     * as ParallelMergeSort.MergeSortTask; ties take the left index first.
+     */
+    private static class IndexMergeSortTask extends RecursiveAction {
+
+        private final int[] keys;
+        private final int[] perm;
+        private final int[] temp;
+        private final int left;
+        private final int right;
+        private final int threshold;
+
+        IndexMergeSortTask(int[] keys, int[] perm, int[] temp, int left, int right, int threshold) {
+            this.keys = keys;
+            this.perm = perm;
+            this.temp = temp;
+            this.left = left;
+            this.right = right;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int length = right - left + 1;
+
+            if (length <= threshold) {
+                sequentialMergeSort(keys, perm, temp, left, right);
+                return;
+            }
+
+            int mid = left + (right - left) / 2;
+            invokeAll(new IndexMergeSortTask(keys, perm, temp, left, mid, threshold),
+                    new IndexMergeSortTask(keys, perm, temp, mid + 1, right, threshold));
+
+            merge(keys, perm, temp, left, mid, right);
+        }
+
+        private static void sequentialMergeSort(int[] keys, int[] perm, int[] temp, int left, int right) {
+            if (left < right) {
+                int mid = left + (right - left) / 2;
+                sequentialMergeSort(keys, perm, temp, left, mid);
+                sequentialMergeSort(keys, perm, temp, mid + 1, right);
+                merge(keys, perm, temp, left, mid, right);
+            }
+        }
+
+        private static void merge(int[] keys, int[] perm, int[] temp, int left, int mid, int right) {
+            if (keys[perm[mid]] <= keys[perm[mid + 1]]) {
+                return; // halves already in order
+            }
+            System.arraycopy(perm, left, temp, left, right - left + 1);
+
+            int i = left;
+            int j = mid + 1;
+            int k = left;
+
+            while (i <= mid && j <= right) {
+                if (keys[temp[i]] <= keys[temp[j]]) {
+                    perm[k++] = temp[i++];
+                } else {
+                    perm[k++] = temp[j++];
+                }
+            }
+
+            while (i <= mid) {
+                perm[k++] = temp[i++];
+            }
+
+            while (j <= right) {
+                perm[k++] = temp[j++];
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package algorithms;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel merge sort (Fork/Join) that works directly on {@link IntBuffer} and
+ * {@link LongBuffer} data, including direct and memory-mapped buffers.
+ * <p>
+ * The task structure is the same as {@link ParallelMergeSort}, but elements are read
+ * and written with absolute get/put on the buffer, and the scratch space is a direct
+ * (off-heap) buffer. A mapped file can therefore be sorted in place without copying
+ * it into an int[] first. Values are interpreted in the byte order of the given
+ * buffer view.
+ * <p>
+ * Foreign memory segments can be sorted through a buffer view of the segment
+ * (for example {@code segment.asByteBuffer().order(order).asIntBuffer()}). A single
+ * buffer, and therefore a single sort, covers at most {@link Integer#MAX_VALUE} bytes
+ * of scratch space.
+ */
+public class ParallelBufferMergeSort {
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a ParallelBufferMergeSort with a default threshold.
+     */
+    public ParallelBufferMergeSort() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a ParallelBufferMergeSort with a custom threshold.
+     *
+     * @param threshold minimum segment size to process in parallel
+     */
+    public ParallelBufferMergeSort(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.threshold = threshold;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Sorts the elements of the buffer between its position and limit in place.
+     * The buffer's position and limit are not changed.
+     */
+    public void sort(IntBuffer buffer) {
+        if (buffer.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        int n = buffer.remaining();
+        if (n <= 1) {
+            return;
+        }
+
+        IntBuffer scratch = allocateScratch(n, Integer.BYTES).asIntBuffer();
+        int base = buffer.position();
+        pool.invoke(new IntMergeSortTask(buffer, scratch, base, base, base + n - 1, threshold));
+    }
+
+    /**
+     * Sorts the elements of the buffer between its position and limit in place.
+     * The buffer's position and limit are not changed.
+     */
+    public void sort(LongBuffer buffer) {
+        if (buffer.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        int n = buffer.remaining();
+        if (n <= 1) {
+            return;
+        }
+
+        LongBuffer scratch = allocateScratch(n, Long.BYTES).asLongBuffer();
+        int base = buffer.position();
+        pool.invoke(new LongMergeSortTask(buffer, scratch, base, base, base + n - 1, threshold));
+    }
+
+    /**
+     * Allocates an off-heap scratch buffer in native byte order for n elements.
+     */
+    private static ByteBuffer allocateScratch(int n, int width) {
+        long bytes = (long) n * width;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Buffer too large for a single off-heap scratch buffer: " + n + " elements");
+        }
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * MergeSortTask over an IntBuffer; scratch index = buffer index - base.
+     */
+    private static class IntMergeSortTask extends RecursiveAction {
+
+        private final IntBuffer buffer;
+        private final IntBuffer scratch;
+        private final int base;
+        private final int left;
+        private final int right;
+        private final int threshold;
+
+        IntMergeSortTask(IntBuffer buffer, IntBuffer scratch, int base, int left, int right, int threshold) {
+            this.buffer = buffer;
+            this.scratch = scratch;
+            this.base = base;
+            this.left = left;
+            this.right = right;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int length = right - left + 1;
+
+            if (length <= threshold) {
+                sequentialMergeSort(buffer, scratch, base, left, right);
+                return;
+            }
+
+            int mid = left + (right - left) / 2;
+            invokeAll(new IntMergeSortTask(buffer, scratch, base, left, mid, threshold),
+                    new IntMergeSortTask(buffer, scratch, base, mid + 1, right, threshold));
+
+            merge(buffer, scratch, base, left, mid, right);
+        }
+
+        private static void sequentialMergeSort(IntBuffer buffer, IntBuffer scratch, int base, int left, int right) {
+            if (left < right) {
+                int mid = left + (right - left) / 2;
+                sequentialMergeSort(buffer, scratch, base, left, mid);
+                sequentialMergeSort(buffer, scratch, base, mid + 1, right);
+                merge(buffer, scratch, base, left, mid, right);
+            }
+        }
+
+        /**
+         * Merges [left..mid] and [mid+1..right] of the buffer using the off-heap scratch.
+         */
+        private static void merge(IntBuffer buffer, IntBuffer scratch, int base, int left, int mid, int right) {
+            if (buffer.get(mid) <= buffer.get(mid + 1)) {
+                return; // halves already in order
+            }
+            scratch.put(left - base, buffer, left, right - left + 1);
+
+            int i = left - base;
+            int iEnd = mid - base;
+            int j = mid + 1 - base;
+            int jEnd = right - base;
+            int k = left;
+
+            while (i <= iEnd && j <= jEnd) {
+                int a = scratch.get(i);
+                int b = scratch.get(j);
+                if (a <= b) {
+                    buffer.put(k++, a);
+                    i++;
+                } else {
+                    buffer.put(k++, b);
+                    j++;
+                }
+            }
+
+            while (i <= iEnd) {
+                buffer.put(k++, scratch.get(i++));
+            }
+
+            while (j <= jEnd) {
+                buffer.put(k++, scratch.get(j++));
+            }
+        }
+    }
+
+    /**
+     * MergeSortTask over a LongBuffer; scratch index = buffer index - base.
+     */
+    private static class LongMergeSortTask extends RecursiveAction {
+
+        private final LongBuffer buffer;
+        private final LongBuffer scratch;
+        private final int base;
+        private final int left;
+        private final int right;
+        private final int threshold;
+
+        LongMergeSortTask(LongBuffer buffer, LongBuffer scratch, int base, int left, int right, int threshold) {
+            this.buffer = buffer;
+            this.scratch = scratch;
+            this.base = base;
+            this.left = left;
+            this.right = right;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int length = right - left + 1;
+
+            if (length <= threshold) {
+                sequentialMergeSort(buffer, scratch, base, left, right);
+                return;
+            }
+
+            int mid = left + (right - left) / 2;
+            invokeAll(new LongMergeSortTask(buffer, scratch, base, left, mid, threshold),
+                    new LongMergeSortTask(buffer, scratch, base, mid + 1, right, threshold));
+
+            merge(buffer, scratch, base, left, mid, right);
+        }
+
+        private static void sequentialMergeSort(LongBuffer buffer, LongBuffer scratch, int base, int left, int right) {
+            if (left < right) {
+                int mid = left + (right - left) / 2;
+                sequentialMergeSort(buffer, scratch, base, left, mid);
+                sequentialMergeSort(buffer, scratch, base, mid + 1, right);
+                merge(buffer, scratch, base, left, mid, right);
+            }
+        }
+
+        /**
+         * Merges [left..mid] and [mid+1..right] of the buffer using the off-heap scratch.
+         */
+        private static void merge(LongBuffer buffer, LongBuffer scratch, int base, int left, int mid, int right) {
+            if (buffer.get(mid) <= buffer.get(mid + 1)) {
+                return; // halves already in order
+            }
+            scratch.put(left - base, buffer, left, right - left + 1);
+
+            int i = left - base;
+            int iEnd = mid - base;
+            int j = mid + 1 - base;
+            int jEnd = right - base;
+            int k = left;
+
+            while (i <= iEnd && j <= jEnd) {
+                long a = scratch.get(i);
+                long b = scratch.get(j);
+                if (a <= b) {
+                    buffer.put(k++, a);
+                    i++;
+                } else {
+                    buffer.put(k++, b);
+                    j++;
+                }
+            }
+
+            while (i <= iEnd) {
+                buffer.put(k++, scratch.get(i++));
+            }
+
+            while (j <= jEnd) {
+                buffer.put(k++, scratch.get(j++));
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel merge sort specialized for char[] (same Fork/Join structure as {@link ParallelMergeSort}).
+ * Segments at or below the threshold are sorted with {@link SequentialCharMergeSort}.
+ */
+public class ParallelCharMergeSort implements CharSortAlgorithm {
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a ParallelCharMergeSort with a default threshold.
+     */
+    public ParallelCharMergeSort() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a ParallelCharMergeSort with a custom threshold.
+     *
+     * @param threshold minimum segment size to process in parallel
+     */
+    public ParallelCharMergeSort(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.threshold = threshold;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    @Override
+    public void sort(char[] array) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+
+        char[] temp = new char[array.length];
+        pool.invoke(new MergeSortTask(array, temp, 0, array.length - 1, threshold));
+    }
+
+    /**
+     * RecursiveAction task representing a merge sort on a subrange of the array.
+     */
+    private static class MergeSortTask extends RecursiveAction {
+
+        private final char[] array;
+        private final char[] temp;
+        private final int left;
+        private final int right;
+        private final int threshold;
+
+        MergeSortTask(char[] array, char[] temp, int left, int right, int threshold) {
+            this.array = array;
+            this.temp = temp;
+            this.left = left;
+            this.right = right;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int length = right - left + 1;
+
+            if (length <= threshold) {
+                SequentialCharMergeSort.mergeSort(array, temp, left, right);
+                return;
+            }
+
+            int mid = left + (right - left) / 2;
+            invokeAll(new MergeSortTask(array, temp, left, mid, threshold),
+                    new MergeSortTask(array, temp, mid + 1, right, threshold));
+
+            SequentialCharMergeSort.merge(array, temp, left, mid, right);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel merge sort specialized for double[] (same Fork/Join structure as {@link ParallelMergeSort}).
+ * Segments at or below the threshold are sorted with {@link SequentialDoubleMergeSort}.
+ * <p>
+ * Elements are compared with {@link Double#compare(double, double)}, the same total order as
+ * {@link java.util.Arrays#sort(double[])}: -0.0 sorts before 0.0 and NaN sorts last.
+ */
+public class ParallelDoubleMergeSort implements DoubleSortAlgorithm {
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a ParallelDoubleMergeSort with a default threshold.
+     */
+    public ParallelDoubleMergeSort() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a ParallelDoubleMergeSort with a custom threshold.
+     *
+     * @param threshold minimum segment size to process in parallel
+     */
+    public ParallelDoubleMergeSort(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.threshold = threshold;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    @Override
+    public void sort(double[] array) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+
+        double[] temp = new double[array.length];
+        pool.invoke(new MergeSortTask(array, temp, 0, array.length - 1, threshold));
+    }
+
+    /**
+     * RecursiveAction task representing a merge sort on a subrange of the array.
+     */
+    private static class MergeSortTask extends RecursiveAction {
+
+        private final double[] array;
+        private final double[] temp;
+        private final int left;
+        private final int right;
+        private final int threshold;
+
+        MergeSortTask(double[] array, double[] temp, int left, int right, int threshold) {
+            this.array = array;
+            this.temp = temp;
+            this.left = left;
+            this.right = right;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int length = right - left + 1;
+
+            if (length <= threshold) {
+                SequentialDoubleMergeSort.mergeSort(array, temp, left, right);
+                return;
+            }
+
+            int mid = left + (right - left) / 2;
+            invokeAll(new MergeSortTask(array, temp, left, mid, threshold),
+                    new MergeSortTask(array, temp, mid + 1, right, threshold));
+
+            SequentialDoubleMergeSort.merge(array, temp, left, mid, right);
+        }
+    }
+}
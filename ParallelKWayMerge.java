@@ -0,0 +1,294 @@
+package algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Merges many already-sorted int[] shards into one sorted array using Java's
+ * Fork/Join framework.
+ * <p>
+ * The output is cut into pieces of roughly equal size. For each cut, a co-ranking step
+ * finds how many elements every shard contributes to the output before it: a binary
+ * search over the value range finds the cut value v, every shard gives all elements
+ * below v, and the elements equal to v are handed out in shard order. The pieces are
+ * then independent and are merged in parallel, each with a loser tree over the shards'
+ * sub-ranges (a plain two-way merge when only two shards are left).
+ * <p>
+ * Equal elements come out in shard order (all equal elements of shard 0 first, then
+ * shard 1, ...), and in their original order within a shard, so the merge is stable
+ * with respect to the concatenation of the shards.
+ * <p>
+ * Shards must each be sorted in ascending order; the result is undefined otherwise.
+ * Inputs of at most threshold elements are merged by a single loser tree.
+ */
+public class ParallelKWayMerge {
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a ParallelKWayMerge with a default threshold.
+     */
+    public ParallelKWayMerge() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a ParallelKWayMerge with a custom threshold.
+     *
+     * @param threshold minimum output piece size merged by one task
+     */
+    public ParallelKWayMerge(int threshold) {
+        this(threshold, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a ParallelKWayMerge that runs in the given pool.
+     *
+     * @param threshold minimum output piece size merged by one task
+     * @param pool      pool to run the merge tasks in
+     */
+    public ParallelKWayMerge(int threshold, ForkJoinPool pool) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null");
+        }
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    /**
+     * Merges the sorted shards into a new sorted array.
+     *
+     * @param shards sorted arrays; none may be null
+     * @return all elements of all shards, sorted
+     */
+    public int[] merge(int[]... shards) {
+        if (shards == null) {
+            throw new IllegalArgumentException("Shards must not be null");
+        }
+        long total = 0;
+        for (int[] shard : shards) {
+            if (shard == null) {
+                throw new IllegalArgumentException("Shard must not be null");
+            }
+            total += shard.length;
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Merged size does not fit in an array: " + total);
+        }
+
+        int n = (int) total;
+        int[] dst = new int[n];
+        int k = shards.length;
+        if (n <= threshold) {
+            int[] from = new int[k];
+            int[] to = new int[k];
+            for (int i = 0; i < k; i++) {
+                to[i] = shards[i].length;
+            }
+            mergeRanges(shards, from, to, dst, 0);
+            return dst;
+        }
+
+        int maxPieces = Math.max(1, pool.getParallelism() * 4);
+        int pieceSize = Math.max(threshold, (n + maxPieces - 1) / maxPieces);
+        int pieces = (n + pieceSize - 1) / pieceSize;
+
+        // cuts[p] = per-shard start of piece p; cuts[pieces] = shard lengths
+        int[][] cuts = new int[pieces + 1][];
+        pool.invoke(new ForkJoinSupport.RangeTask(0, pieces + 1, 1, (fromPiece, toPiece) -> {
+            for (int p = fromPiece; p < toPiece; p++) {
+                cuts[p] = coRank(shards, (int) Math.min(n, (long) p * pieceSize));
+            }
+        }));
+        pool.invoke(new ForkJoinSupport.RangeTask(0, pieces, 1, (fromPiece, toPiece) -> {
+            for (int p = fromPiece; p < toPiece; p++) {
+                mergeRanges(shards, cuts[p], cuts[p + 1], dst, p * pieceSize);
+            }
+        }));
+        return dst;
+    }
+
+    /**
+     * Co-ranking: for an output rank r, returns how many elements each shard contributes
+     * to the first r outputs of the stable merge (ties go to the lower shard index).
+     */
+    static int[] coRank(int[][] shards, int rank) {
+        int k = shards.length;
+        int[] counts = new int[k];
+        if (rank == 0) {
+            return counts;
+        }
+
+        // smallest value v with at least rank elements <= v
+        long lo = Integer.MIN_VALUE;
+        long hi = Integer.MAX_VALUE;
+        while (lo < hi) {
+            long mid = (lo + hi) >> 1;
+            long atMost = 0;
+            for (int[] shard : shards) {
+                atMost += ParallelMergeSort.MergeTask.upperBound(shard, 0, shard.length, (int) mid);
+            }
+            if (atMost >= rank) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        int v = (int) lo;
+
+        // every element below v, then the copies of v in shard order
+        int remaining = rank;
+        for (int i = 0; i < k; i++) {
+            counts[i] = ParallelMergeSort.MergeTask.lowerBound(shards[i], 0, shards[i].length, v);
+            remaining -= counts[i];
+        }
+        for (int i = 0; i < k && remaining > 0; i++) {
+            int equal = ParallelMergeSort.MergeTask.upperBound(shards[i], 0, shards[i].length, v) - counts[i];
+            int take = Math.min(equal, remaining);
+            counts[i] += take;
+            remaining -= take;
+        }
+        return counts;
+    }
+
+    /**
+     * Merges shards[i][from[i]..to[i]) for all i into dst starting at dstLo.
+     */
+    static void mergeRanges(int[][] shards, int[] from, int[] to, int[] dst, int dstLo) {
+        // keep only non-empty ranges, in shard order (the tie-break order)
+        int k = shards.length;
+        int[][] runs = new int[k][];
+        int[] pos = new int[k];
+        int[] end = new int[k];
+        int m = 0;
+        for (int i = 0; i < k; i++) {
+            if (from[i] < to[i]) {
+                runs[m] = shards[i];
+                pos[m] = from[i];
+                end[m] = to[i];
+                m++;
+            }
+        }
+
+        if (m == 0) {
+            return;
+        }
+        if (m == 1) {
+            System.arraycopy(runs[0], pos[0], dst, dstLo, end[0] - pos[0]);
+            return;
+        }
+        if (m == 2) {
+            mergeTwo(runs[0], pos[0], end[0], runs[1], pos[1], end[1], dst, dstLo);
+            return;
+        }
+        new LoserTree(runs, pos, end, m).mergeInto(dst, dstLo);
+    }
+
+    private static void mergeTwo(int[] a, int i, int aEnd, int[] b, int j, int bEnd, int[] dst, int k) {
+        while (i < aEnd && j < bEnd) {
+            if (a[i] <= b[j]) {
+                dst[k++] = a[i++];
+            } else {
+                dst[k++] = b[j++];
+            }
+        }
+        System.arraycopy(a, i, dst, k, aEnd - i);
+        System.arraycopy(b, j, dst, k + aEnd - i, bEnd - j);
+    }
+
+    /**
+     * Tournament tree of losers over m runs. Each internal node keeps the loser of the
+     * match below it and the overall winner is kept on the side, so replacing the winner
+     * costs one comparison per level (log2 m) instead of the two per level of a binary heap.
+     * <p>
+     * A run's current head is kept as one long key, value in the high half and run index
+     * in the low half, so a single long comparison orders by value and breaks ties by
+     * run index. Exhausted and padding runs hold {@link #EXHAUSTED}, which loses to
+     * every real key.
+     * <p>
+     * Besides {@link #mergeInto} the tree can be stepped one element at a time with
+     * {@link #hasNext()} and {@link #next()}, which is how {@link StreamingSorter} streams
+     * its runs without materializing the merge.
+     */
+    static final class LoserTree {
+        private static final long EXHAUSTED = Long.MAX_VALUE;
+
+        private final int[][] runs;
+        private final int[] pos;
+        private final int[] end;
+        private final int leaves; // m rounded up to a power of two
+        private final long[] keys;
+        private final int[] tree;
+        private int winner;
+
+        LoserTree(int[][] runs, int[] pos, int[] end, int m) {
+            this.runs = runs;
+            this.pos = pos;
+            this.end = end;
+            this.leaves = m == 1 ? 1 : Integer.highestOneBit(m - 1) << 1;
+            this.keys = new long[leaves];
+            for (int i = 0; i < leaves; i++) {
+                keys[i] = i < m ? key(runs[i][pos[i]], i) : EXHAUSTED;
+            }
+            this.tree = new int[leaves];
+            winner = leaves == 1 ? 0 : build(1);
+        }
+
+        private static long key(int value, int run) {
+            return ((long) value << 32) | run;
+        }
+
+        /**
+         * Plays the matches of the subtree under node and returns its winner.
+         */
+        private int build(int node) {
+            if (node >= leaves) {
+                return node - leaves;
+            }
+            int a = build(2 * node);
+            int b = build(2 * node + 1);
+            if (keys[a] <= keys[b]) {
+                tree[node] = b;
+                return a;
+            }
+            tree[node] = a;
+            return b;
+        }
+
+        void mergeInto(int[] dst, int k) {
+            while (hasNext()) {
+                dst[k++] = next();
+            }
+        }
+
+        boolean hasNext() {
+            return keys[winner] != EXHAUSTED;
+        }
+
+        /**
+         * Returns the smallest remaining head and replays its run's path to the root.
+         * Only valid while {@link #hasNext()}.
+         */
+        int next() {
+            int winner = this.winner;
+            int value = (int) (keys[winner] >> 32);
+            int next = ++pos[winner];
+            keys[winner] = next < end[winner] ? key(runs[winner][next], winner) : EXHAUSTED;
+
+            long winnerKey = keys[winner];
+            for (int node = (winner + leaves) >> 1; node > 0; node >>= 1) {
+                int challenger = tree[node];
+                if (keys[challenger] < winnerKey) {
+                    tree[node] = winner;
+                    winner = challenger;
+                    winnerKey = keys[challenger];
+                }
+            }
+            this.winner = winner;
+            return value;
+        }
+    }
+}
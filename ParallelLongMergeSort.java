@@ -0,0 +1,107 @@
+package algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel merge sort specialized for long[] (same Fork/Join structure as {@link ParallelMergeSort}).
+ * Segments at or below the threshold are sorted with {@link SequentialLongMergeSort}.
+ * {@link #autoTuned()} picks the threshold per call with a {@link ThresholdTuner}.
+ */
+public class ParallelLongMergeSort implements LongSortAlgorithm {
+
+    private final int threshold;
+    private final ThresholdTuner tuner; // null = fixed threshold
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a ParallelLongMergeSort with a default threshold.
+     */
+    public ParallelLongMergeSort() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a ParallelLongMergeSort with a custom threshold.
+     *
+     * @param threshold minimum segment size to process in parallel
+     */
+    public ParallelLongMergeSort(int threshold) {
+        this(threshold, null);
+    }
+
+    private ParallelLongMergeSort(int threshold, ThresholdTuner tuner) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.threshold = threshold;
+        this.tuner = tuner;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Creates a ParallelLongMergeSort whose threshold is picked per call by the shared
+     * {@link ThresholdTuner} (calibrated lazily and cached in the user's profile file).
+     */
+    public static ParallelLongMergeSort autoTuned() {
+        return autoTuned(ThresholdTuner.defaultTuner());
+    }
+
+    /**
+     * Creates a ParallelLongMergeSort whose threshold is picked per call by the given tuner.
+     */
+    public static ParallelLongMergeSort autoTuned(ThresholdTuner tuner) {
+        if (tuner == null) {
+            throw new IllegalArgumentException("Tuner must not be null");
+        }
+        return new ParallelLongMergeSort(Integer.MAX_VALUE, tuner);
+    }
+
+    @Override
+    public void sort(long[] array) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+
+        int cutoff = tuner == null ? threshold
+                : tuner.thresholdFor(array.length, pool.getParallelism(), ThresholdTuner.ElementType.LONG);
+        long[] temp = new long[array.length];
+        pool.invoke(new MergeSortTask(array, temp, 0, array.length - 1, cutoff));
+    }
+
+    /**
+     * RecursiveAction task representing a merge sort on a subrange of the array.
+     */
+    private static class MergeSortTask extends RecursiveAction {
+
+        private final long[] array;
+        private final long[] temp;
+        private final int left;
+        private final int right;
+        private final int threshold;
+
+        MergeSortTask(long[] array, long[] temp, int left, int right, int threshold) {
+            this.array = array;
+            this.temp = temp;
+            this.left = left;
+            this.right = right;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int length = right - left + 1;
+
+            if (length <= threshold) {
+                SequentialLongMergeSort.mergeSort(array, temp, left, right);
+                return;
+            }
+
+            int mid = left + (right - left) / 2;
+            invokeAll(new MergeSortTask(array, temp, left, mid, threshold),
+                    new MergeSortTask(array, temp, mid + 1, right, threshold));
+
+            SequentialLongMergeSort.merge(array, temp, left, mid, right);
+        }
+    }
+}
@@ -1,7 +1,18 @@
 package algorithms;
 
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Parallel merge sort implementation using Java's Fork/Join framework.
@@ -9,12 +20,32 @@ import java.util.concurrent.RecursiveAction;
  * The algorithm recursively splits the array segment into halves, sorts each half
  * in parallel, and then merges the sorted halves. For small segments (size below
  * a configurable threshold) it falls back to a sequential merge sort to avoid
- * excessive task overhead.
+ * excessive task overhead. Merges whose halves are already in order are skipped.
+ * <p>
+ * The constructors cover the common cases; {@link #builder()} combines the other
+ * options (parallel merges, scratch buffer pool, insertion-sort leaves, merge kernel,
+ * auto-tuned threshold, dedicated pool, instrumentation), each described on its
+ * Builder method. Besides int[], the same task tree sorts object arrays and lists
+ * stably with a {@link Comparator}, and backs
+ * {@link #sortAsync(int[], SortProgressListener)}, {@link #partialSort},
+ * {@link #nthElement} and {@link #sortDistinct}.
+ * <p>
+ * A null array is treated like an empty one: the sorts leave it alone and
+ * {@link #sortDistinct} returns 0. Only {@link #nthElement} rejects it, since an empty
+ * array has no n-th element.
  */
-public class ParallelMergeSort implements SortAlgorithm {
+public class ParallelMergeSort implements SortAlgorithm, AutoCloseable {
 
     private final int threshold;
+    private final boolean parallelMerge;
+    private final int insertionSortSize;
+    private final MergeKernel mergeKernel; // null = built-in scalar loop
+    private final ScratchBufferPool scratchPool;
+    private final ThresholdTuner tuner;
     private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final boolean instrumented;
+    private volatile SortMetrics.Snapshot lastMetrics;
 
     /**
      * Creates a ParallelMergeSort with a default threshold.
@@ -29,22 +60,629 @@ public class ParallelMergeSort implements SortAlgorithm {
      * @param threshold minimum segment size to process in parallel
      */
     public ParallelMergeSort(int threshold) {
+        this(threshold, false);
+    }
+
+    /**
+     * Creates a ParallelMergeSort with a custom threshold and merge mode.
+     *
+     * @param threshold     minimum segment size to process in parallel
+     * @param parallelMerge if true, merges larger than the threshold are split into
+     *                      independent subranges and merged in parallel
+     */
+    public ParallelMergeSort(int threshold, boolean parallelMerge) {
+        this(threshold, parallelMerge, null);
+    }
+
+    /**
+     * Creates a ParallelMergeSort that leases its temp buffers from a scratch pool.
+     *
+     * @param threshold     minimum segment size to process in parallel
+     * @param parallelMerge if true, merges larger than the threshold run in parallel
+     * @param scratchPool   pool to lease temp buffers from, or null to allocate per call
+     */
+    public ParallelMergeSort(int threshold, boolean parallelMerge, ScratchBufferPool scratchPool) {
+        this(threshold, parallelMerge, scratchPool, 1);
+    }
+
+    /**
+     * Creates a ParallelMergeSort with a hybrid insertion-sort leaf stage.
+     *
+     * @param threshold         minimum segment size to process in parallel
+     * @param parallelMerge     if true, merges larger than the threshold run in parallel
+     * @param scratchPool       pool to lease temp buffers from, or null to allocate per call
+     * @param insertionSortSize blocks of at most this many elements are sorted with binary
+     *                          insertion sort instead of being split further (1 = pure merge sort)
+     */
+    public ParallelMergeSort(int threshold, boolean parallelMerge, ScratchBufferPool scratchPool, int insertionSortSize) {
+        this(threshold, parallelMerge, scratchPool, insertionSortSize, MergeKernels.SCALAR);
+    }
+
+    /**
+     * Creates a ParallelMergeSort with a selectable merge kernel.
+     *
+     * @param threshold         minimum segment size to process in parallel
+     * @param parallelMerge     if true, merges larger than the threshold run in parallel
+     * @param scratchPool       pool to lease temp buffers from, or null to allocate per call
+     * @param insertionSortSize blocks of at most this many elements use binary insertion sort
+     * @param mergeKernel       inner merge loop, e.g. {@link MergeKernels#forName(String)}
+     */
+    public ParallelMergeSort(int threshold, boolean parallelMerge, ScratchBufferPool scratchPool,
+                             int insertionSortSize, MergeKernel mergeKernel) {
+        this(threshold, parallelMerge, scratchPool, insertionSortSize, mergeKernel, null, ForkJoinPool.commonPool(), false,
+                false);
+    }
+
+    /**
+     * Creates a ParallelMergeSort that runs its tasks in the given pool instead of the
+     * common pool. The pool stays owned by the caller; {@link #close()} does not shut it down.
+     *
+     * @param threshold minimum segment size to process in parallel
+     * @param pool      pool to run the sort tasks in
+     */
+    public ParallelMergeSort(int threshold, ForkJoinPool pool) {
+        this(threshold, false, null, 1, MergeKernels.SCALAR, null, requirePool(pool), false, false);
+    }
+
+    private ParallelMergeSort(int threshold, boolean parallelMerge, ScratchBufferPool scratchPool,
+                              int insertionSortSize, MergeKernel mergeKernel, ThresholdTuner tuner,
+                              ForkJoinPool pool, boolean ownsPool, boolean instrumented) {
         if (threshold <= 0) {
             throw new IllegalArgumentException("Threshold must be positive");
         }
+        if (insertionSortSize <= 0) {
+            throw new IllegalArgumentException("Insertion sort size must be positive");
+        }
         this.threshold = threshold;
-        this.pool = ForkJoinPool.commonPool();
+        this.parallelMerge = parallelMerge;
+        this.insertionSortSize = insertionSortSize;
+        // keep the inlined scalar loop on the hot path unless another kernel is chosen
+        this.mergeKernel = mergeKernel == MergeKernels.SCALAR ? null : mergeKernel;
+        this.scratchPool = scratchPool;
+        this.tuner = tuner;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.instrumented = instrumented;
+    }
+
+    private static ForkJoinPool requirePool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null");
+        }
+        return pool;
+    }
+
+    /**
+     * Returns a builder for a ParallelMergeSort with any combination of the options above.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a ParallelMergeSort whose threshold is picked per call by the shared
+     * {@link ThresholdTuner} (calibrated lazily and cached in the user's profile file).
+     */
+    public static ParallelMergeSort autoTuned() {
+        return autoTuned(ThresholdTuner.defaultTuner());
+    }
+
+    /**
+     * Creates a ParallelMergeSort whose threshold is picked per call by the given tuner.
+     */
+    public static ParallelMergeSort autoTuned(ThresholdTuner tuner) {
+        return builder().autoTuned(tuner).build();
+    }
+
+    /**
+     * Threshold for a sort of n elements: the fixed threshold, or the tuner's choice.
+     */
+    private int thresholdFor(int n, ThresholdTuner.ElementType type) {
+        return tuner == null ? threshold : tuner.thresholdFor(n, pool.getParallelism(), type);
     }
 
     @Override
     public void sort(int[] array) {
+        sort(array, instrumented ? new SortContext(null, 0, new SortMetrics()) : null);
+    }
+
+    private void sort(int[] array, SortContext context) {
         if (array == null || array.length <= 1) {
             return;
         }
 
-        int[] temp = new int[array.length];
-        MergeSortTask rootTask = new MergeSortTask(array, temp, 0, array.length - 1, threshold);
-        pool.invoke(rootTask);
+        SortMetrics metrics = context != null ? context.metrics : null;
+        long steals = metrics != null ? pool.getStealCount() : 0L;
+        long start = metrics != null ? System.nanoTime() : 0L;
+        int[] temp = leaseTemp(array.length);
+        int cutoff = thresholdFor(array.length, ThresholdTuner.ElementType.INT);
+        MergeSortTask rootTask = new MergeSortTask(array, temp, 0, array.length - 1, cutoff, parallelMerge,
+                insertionSortSize, mergeKernel, context, 0);
+        invoke(rootTask);
+        releaseTemp(temp);
+        if (metrics != null) {
+            lastMetrics = metrics.snapshot(array.length, cutoff, pool.getParallelism(), System.nanoTime() - start,
+                    pool.getStealCount() - steals);
+        }
+    }
+
+    /**
+     * Runs a task tree in this sorter's pool, directly if the caller already is one of its
+     * workers (e.g. an async sort, or a sort called from another task in the pool).
+     */
+    private <T> T invoke(ForkJoinTask<T> task) {
+        return ForkJoinSupport.invoke(pool, task);
+    }
+
+    private int[] leaseTemp(int length) {
+        return scratchPool == null ? new int[length] : scratchPool.lease(length);
+    }
+
+    /**
+     * Returns a temp buffer to the scratch pool. Called only after the task tree completed
+     * normally: when a task throws (cancellation or failure), invokeAll rethrows without
+     * waiting for siblings that other workers already stole, and those may still be
+     * writing to the buffer, so it is dropped instead of being handed to another sort.
+     */
+    private void releaseTemp(int[] temp) {
+        if (scratchPool != null) {
+            scratchPool.release(temp);
+        }
+    }
+
+    @Override
+    public CompletableFuture<int[]> sortAsync(int[] array) {
+        return sortAsync(array, null);
+    }
+
+    /**
+     * Sorts the array in this sorter's pool without blocking the caller. The future
+     * completes with the (same) sorted array.
+     * <p>
+     * Cancellation is cooperative: once the future is completed by anything other than
+     * the sort itself (cancel, orTimeout, completeExceptionally), every task checks the
+     * flag before it starts and before it merges, and the sort winds down within about
+     * one leaf of work. The array contents are then unspecified.
+     *
+     * @param array    array to sort in place
+     * @param listener receives (elements merged, total) after each task, or null;
+     *                 see {@link SortProgressListener}
+     */
+    public CompletableFuture<int[]> sortAsync(int[] array, SortProgressListener listener) {
+        CompletableFuture<int[]> future = new CompletableFuture<>();
+        if (array == null || array.length <= 1) {
+            future.complete(array);
+            return future;
+        }
+
+        SortContext context = new SortContext(listener, mergeWork(array.length, insertionSortSize),
+                instrumented ? new SortMetrics() : null);
+        future.whenComplete((result, failure) -> context.cancelled = true);
+        pool.execute(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                try {
+                    context.checkCancelled();
+                    sort(array, context);
+                    future.complete(array);
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Rearranges the array so that its first k positions hold the k smallest values in
+     * sorted order. The remaining positions hold the other values in unspecified order.
+     * <p>
+     * Leaves of the task tree select their own k smallest (quickselect) and sort only
+     * those; each merge then combines the two sorted prefixes and stops after k outputs,
+     * so the work is about n + (n / threshold) * k log k instead of n log n.
+     *
+     * @param array array to rearrange in place
+     * @param k     number of leading positions to sort; values above the length sort everything
+     */
+    public void partialSort(int[] array, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        if (array == null || array.length <= 1 || k == 0) {
+            return;
+        }
+        if (k >= array.length) {
+            sort(array);
+            return;
+        }
+
+        int[] temp = leaseTemp(array.length);
+        int cutoff = thresholdFor(array.length, ThresholdTuner.ElementType.INT);
+        invoke(new PartialSortTask(array, temp, 0, array.length - 1, k, cutoff, insertionSortSize, mergeKernel));
+        releaseTemp(temp);
+    }
+
+    /**
+     * Sorts the array and drops duplicates in the same pass: afterwards array[0..count)
+     * holds the distinct values in ascending order, and count is returned. The positions
+     * from count on hold unspecified values.
+     * <p>
+     * Every task removes the duplicates of its own segment, so the merges only see
+     * distinct values, and merged halves often shrink a lot on inputs with many repeats.
+     * Merges of more than threshold elements run in parallel over co-ranked pieces, as in
+     * {@link SortedSetOps}.
+     *
+     * @param array array to sort and deduplicate in place; null counts as empty
+     * @return number of distinct values
+     */
+    public int sortDistinct(int[] array) {
+        if (array == null) {
+            return 0;
+        }
+        if (array.length <= 1) {
+            return array.length;
+        }
+
+        int[] temp = leaseTemp(array.length);
+        int cutoff = thresholdFor(array.length, ThresholdTuner.ElementType.INT);
+        int count = invoke(new DistinctSortTask(array, temp, 0, array.length - 1, cutoff, insertionSortSize,
+                mergeKernel, pool));
+        releaseTemp(temp);
+        return count;
+    }
+
+    /**
+     * Rearranges the array so that array[n] holds the value it would have after sorting,
+     * with no larger value before it and no smaller value after it (parallel quickselect).
+     * For the k largest values, select n = length - k; they are then array[n..length).
+     *
+     * @param array array to rearrange in place
+     * @param n     index to select, 0 &lt;= n &lt; array.length
+     * @return the n-th smallest value (0-based)
+     */
+    public int nthElement(int[] array, int n) {
+        if (array == null || n < 0 || n >= array.length) {
+            throw new IllegalArgumentException("Index out of range: " + n);
+        }
+        int cutoff = thresholdFor(array.length, ThresholdTuner.ElementType.INT);
+        if (array.length <= cutoff) {
+            return ParallelSelection.select(array, 0, array.length, n);
+        }
+
+        int[] temp = leaseTemp(array.length);
+        int value = ParallelSelection.parallelSelect(pool, array, temp, n, cutoff);
+        releaseTemp(temp);
+        return value;
+    }
+
+    /**
+     * Number of element moves counted as "merged" for a sort of n elements: every merge
+     * step (skipped or not) counts the length of its range. Blocks of at most
+     * insertionSortSize elements are not merged. Independent of the parallel threshold.
+     */
+    static long mergeWork(int n, int insertionSortSize) {
+        // Each level of the split tree holds blocks of only two lengths, size and size + 1
+        long limit = Math.max(1, insertionSortSize);
+        long size = n;
+        long small = 1; // blocks of length size
+        long large = 0; // blocks of length size + 1
+        long work = 0;
+        while (size > limit) {
+            work += small * size + large * (size + 1);
+            if (size % 2 == 0) {
+                small = 2 * small + large;
+            } else {
+                large = small + 2 * large;
+            }
+            size /= 2;
+        }
+        if (size == limit) {
+            work += large * (size + 1); // blocks of length limit + 1 are split once more
+        }
+        return work;
+    }
+
+    /**
+     * Per-call state shared by the tasks of one async or instrumented sort: the
+     * cancellation flag, the progress counter and the metrics recorder (or null).
+     */
+    private static final class SortContext {
+        private final SortProgressListener listener;
+        private final long total;
+        private final SortMetrics metrics;
+        private final AtomicLong merged = new AtomicLong();
+        private volatile boolean cancelled;
+
+        SortContext(SortProgressListener listener, long total, SortMetrics metrics) {
+            this.listener = listener;
+            this.total = total;
+            this.metrics = metrics;
+        }
+
+        void checkCancelled() {
+            if (cancelled) {
+                throw new CancellationException("Sort cancelled");
+            }
+        }
+
+        void merged(long count) {
+            long done = merged.addAndGet(count);
+            if (listener != null) {
+                listener.onProgress(done, total);
+            }
+        }
+    }
+
+    /**
+     * Sorts an object array with the given comparator. The sort is stable: equal
+     * elements keep their relative order.
+     *
+     * @param array      array to sort
+     * @param comparator ordering to use, or null for natural ordering
+     */
+    public <T> void sort(T[] array, Comparator<? super T> comparator) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+
+        Comparator<? super T> order = comparator != null ? comparator : naturalOrder();
+        T[] temp = array.clone();
+        int cutoff = thresholdFor(array.length, ThresholdTuner.ElementType.OBJECT);
+        invoke(new ObjectMergeSortTask<>(array, temp, 0, array.length - 1, cutoff, order));
+    }
+
+    /**
+     * Sorts a list with the given comparator. Like {@link List#sort(Comparator)}, the
+     * elements are copied to an array, sorted, and written back through a list iterator.
+     *
+     * @param list       list to sort
+     * @param comparator ordering to use, or null for natural ordering
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void sort(List<T> list, Comparator<? super T> comparator) {
+        if (list == null || list.size() <= 1) {
+            return;
+        }
+
+        T[] array = (T[]) list.toArray();
+        sort(array, comparator);
+
+        ListIterator<T> it = list.listIterator();
+        for (T element : array) {
+            it.next();
+            it.set(element);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Comparator<? super T> naturalOrder() {
+        return (Comparator) Comparator.naturalOrder();
+    }
+
+    /**
+     * Returns the scratch pool this sorter leases temp buffers from, or null if none.
+     */
+    public ScratchBufferPool getScratchPool() {
+        return scratchPool;
+    }
+
+    /**
+     * Returns the pool the sort tasks run in.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the metrics of the most recent completed int[] sort, or null if the sorter
+     * is not instrumented or has not sorted yet. With concurrent sorts on one sorter,
+     * the last one to finish wins.
+     */
+    public SortMetrics.Snapshot getLastMetrics() {
+        return lastMetrics;
+    }
+
+    /**
+     * Shuts down the pool if this sorter created it (see {@link Builder#parallelism(int)})
+     * and waits for running sorts to finish. Does nothing for the common pool or a pool
+     * supplied by the caller. Sorting after close fails with a RejectedExecutionException.
+     */
+    @Override
+    public void close() {
+        if (!ownsPool) {
+            return;
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Builder for ParallelMergeSort. Defaults match {@link #ParallelMergeSort()}:
+     * threshold 10_000, sequential merge, no scratch pool, pure merge sort leaves,
+     * scalar merge kernel, common pool.
+     */
+    public static final class Builder {
+
+        private int threshold = 10_000;
+        private ThresholdTuner tuner;
+        private boolean parallelMerge;
+        private ScratchBufferPool scratchPool;
+        private int insertionSortSize = 1;
+        private MergeKernel mergeKernel = MergeKernels.SCALAR;
+        private ForkJoinPool pool;
+        private int parallelism;
+        private String threadNamePrefix = "parallel-merge-sort";
+        private boolean asyncMode;
+        private boolean instrumented;
+
+        private Builder() {
+        }
+
+        /**
+         * Minimum segment size to process in parallel.
+         */
+        public Builder threshold(int threshold) {
+            this.threshold = threshold;
+            this.tuner = null;
+            return this;
+        }
+
+        /**
+         * Pick the threshold per call with the given tuner instead of a fixed value.
+         */
+        public Builder autoTuned(ThresholdTuner tuner) {
+            if (tuner == null) {
+                throw new IllegalArgumentException("Tuner must not be null");
+            }
+            this.tuner = tuner;
+            this.threshold = Integer.MAX_VALUE;
+            return this;
+        }
+
+        /**
+         * Split merges larger than the threshold and run the pieces in parallel.
+         */
+        public Builder parallelMerge(boolean parallelMerge) {
+            this.parallelMerge = parallelMerge;
+            return this;
+        }
+
+        /**
+         * Lease temp buffers from this pool (null = allocate per call).
+         */
+        public Builder scratchPool(ScratchBufferPool scratchPool) {
+            this.scratchPool = scratchPool;
+            return this;
+        }
+
+        /**
+         * Sort blocks of at most this many elements with binary insertion sort (1 = off).
+         */
+        public Builder insertionSortSize(int insertionSortSize) {
+            this.insertionSortSize = insertionSortSize;
+            return this;
+        }
+
+        /**
+         * Inner merge loop (see {@link MergeKernels}).
+         */
+        public Builder mergeKernel(MergeKernel mergeKernel) {
+            if (mergeKernel == null) {
+                throw new IllegalArgumentException("Merge kernel must not be null");
+            }
+            this.mergeKernel = mergeKernel;
+            return this;
+        }
+
+        /**
+         * Run in a caller-owned pool. The sorter never shuts it down.
+         */
+        public Builder pool(ForkJoinPool pool) {
+            this.pool = requirePool(pool);
+            return this;
+        }
+
+        /**
+         * Run in a pool of this many worker threads created and owned by the sorter, so
+         * large sorts do not compete with other users of the common pool; release it
+         * with {@link ParallelMergeSort#close()}.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Parallelism must be positive");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Name prefix for the worker threads of a sorter-owned pool ("prefix-1", "prefix-2", ...).
+         */
+        public Builder threadNamePrefix(String threadNamePrefix) {
+            if (threadNamePrefix == null || threadNamePrefix.isEmpty()) {
+                throw new IllegalArgumentException("Thread name prefix must not be empty");
+            }
+            this.threadNamePrefix = threadNamePrefix;
+            return this;
+        }
+
+        /**
+         * Create the sorter-owned pool in async (FIFO) mode; see {@link ForkJoinPool}.
+         */
+        public Builder asyncMode(boolean asyncMode) {
+            this.asyncMode = asyncMode;
+            return this;
+        }
+
+        /**
+         * Record {@link SortMetrics} and JFR events for every int[] sort; see
+         * {@link ParallelMergeSort#getLastMetrics()}.
+         */
+        public Builder instrumented(boolean instrumented) {
+            this.instrumented = instrumented;
+            return this;
+        }
+
+        /**
+         * Creates the sorter, and its own pool if a parallelism was set.
+         *
+         * @throws IllegalStateException if both a pool and a parallelism were set
+         */
+        public ParallelMergeSort build() {
+            if (pool != null && parallelism > 0) {
+                throw new IllegalStateException("Set either a pool or a parallelism, not both");
+            }
+            // validate before creating threads
+            if (threshold <= 0) {
+                throw new IllegalArgumentException("Threshold must be positive");
+            }
+            if (insertionSortSize <= 0) {
+                throw new IllegalArgumentException("Insertion sort size must be positive");
+            }
+            if (parallelism > 0) {
+                ForkJoinPool owned = new ForkJoinPool(parallelism, namedThreadFactory(threadNamePrefix), null, asyncMode);
+                return new ParallelMergeSort(threshold, parallelMerge, scratchPool, insertionSortSize, mergeKernel,
+                        tuner, owned, true, instrumented);
+            }
+            return new ParallelMergeSort(threshold, parallelMerge, scratchPool, insertionSortSize, mergeKernel,
+                    tuner, pool != null ? pool : ForkJoinPool.commonPool(), false, instrumented);
+        }
+
+        private static ForkJoinPool.ForkJoinWorkerThreadFactory namedThreadFactory(String prefix) {
+            AtomicInteger counter = new AtomicInteger();
+            return p -> {
+                // default factory threads are daemons, so an unclosed sorter never blocks JVM exit
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setName(prefix + "-" + counter.incrementAndGet());
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * Sorts array[left..right] with the sequential merge sort the leaves use, with
+     * temp[left..right] as scratch. For other algorithms that sort independent pieces.
+     */
+    static void sequentialSort(int[] array, int[] temp, int left, int right) {
+        MergeSortTask.sequentialMergeSort(array, temp, left, right, 1, null);
+    }
+
+    /**
+     * Sorts array[lo..hi) given that array[lo..start) is already sorted. Each new
+     * element is inserted after any equal elements, which keeps the sort stable.
+     */
+    static void binaryInsertionSort(int[] array, int lo, int start, int hi) {
+        for (int i = start; i < hi; i++) {
+            int pivot = array[i];
+            int pos = MergeTask.upperBound(array, lo, i, pivot);
+            System.arraycopy(array, pos, array, pos + 1, i - pos);
+            array[pos] = pivot;
+        }
     }
 
     /**
@@ -57,53 +695,108 @@ public class ParallelMergeSort implements SortAlgorithm {
         private final int left;
         private final int right;
         private final int threshold;
+        private final boolean parallelMerge;
+        private final int insertionSortSize;
+        private final MergeKernel kernel;
+        private final SortContext context; // null for plain blocking sorts
+        private final int depth;
 
-        MergeSortTask(int[] array, int[] temp, int left, int right, int threshold) {
+        MergeSortTask(int[] array, int[] temp, int left, int right, int threshold, boolean parallelMerge,
+                      int insertionSortSize, MergeKernel kernel, SortContext context, int depth) {
             this.array = array;
             this.temp = temp;
             this.left = left;
             this.right = right;
             this.threshold = threshold;
+            this.parallelMerge = parallelMerge;
+            this.insertionSortSize = insertionSortSize;
+            this.kernel = kernel;
+            this.context = context;
+            this.depth = depth;
         }
 
         @Override
         protected void compute() {
             int length = right - left + 1;
+            SortMetrics metrics = null;
+            if (context != null) {
+                context.checkCancelled();
+                metrics = context.metrics;
+            }
 
             // For small segments, use sequential merge sort to reduce overhead
             if (length <= threshold) {
-                sequentialMergeSort(array, temp, left, right);
+                SortMetrics.TaskEvent event = metrics != null ? metrics.begin() : null;
+                sequentialMergeSort(array, temp, left, right, insertionSortSize, kernel);
+                if (context != null) {
+                    if (metrics != null) {
+                        metrics.leafDone(event, depth, length);
+                    }
+                    context.merged(mergeWork(length, insertionSortSize));
+                }
                 return;
             }
 
             int mid = left + (right - left) / 2;
-            MergeSortTask leftTask = new MergeSortTask(array, temp, left, mid, threshold);
-            MergeSortTask rightTask = new MergeSortTask(array, temp, mid + 1, right, threshold);
+            MergeSortTask leftTask = new MergeSortTask(array, temp, left, mid, threshold, parallelMerge,
+                    insertionSortSize, kernel, context, depth + 1);
+            MergeSortTask rightTask = new MergeSortTask(array, temp, mid + 1, right, threshold, parallelMerge,
+                    insertionSortSize, kernel, context, depth + 1);
 
             // Sort halves in parallel
             invokeAll(leftTask, rightTask);
+            if (context != null) {
+                context.checkCancelled();
+            }
 
-            // Then merge the sorted halves
-            merge(array, temp, left, mid, right);
+            // Then merge the sorted halves, unless they are already in order
+            SortMetrics.TaskEvent event = metrics != null ? metrics.begin() : null;
+            boolean skipped = array[mid] <= array[mid + 1];
+            if (!skipped) {
+                if (parallelMerge) {
+                    System.arraycopy(array, left, temp, left, length);
+                    new MergeTask(temp, left, mid, mid + 1, right, array, left, threshold, kernel).invoke();
+                } else {
+                    merge(array, temp, left, mid, right, kernel);
+                }
+            }
+            if (context != null) {
+                if (metrics != null) {
+                    metrics.mergeDone(event, depth, length, skipped, parallelMerge);
+                }
+                context.merged(length);
+            }
         }
 
         /**
-         * Standard recursive merge sort used for small segments.
+         * Standard recursive merge sort used for small segments; blocks of at most
+         * insertionSortSize elements are finished with binary insertion sort.
          */
-        private static void sequentialMergeSort(int[] array, int[] temp, int left, int right) {
-            if (left < right) {
+        private static void sequentialMergeSort(int[] array, int[] temp, int left, int right, int insertionSortSize,
+                                                MergeKernel kernel) {
+            if (right - left < insertionSortSize) {
+                binaryInsertionSort(array, left, left + 1, right + 1);
+            } else if (left < right) {
                 int mid = left + (right - left) / 2;
-                sequentialMergeSort(array, temp, left, mid);
-                sequentialMergeSort(array, temp, mid + 1, right);
-                merge(array, temp, left, mid, right);
+                sequentialMergeSort(array, temp, left, mid, insertionSortSize, kernel);
+                sequentialMergeSort(array, temp, mid + 1, right, insertionSortSize, kernel);
+                merge(array, temp, left, mid, right, kernel);
             }
         }
 
         /**
          * Merges two sorted subarrays: [left..mid] and [mid+1..right] in-place using a temp buffer.
+         * Skips the merge when the halves are already in order; uses the kernel if one is set.
          */
-        private static void merge(int[] array, int[] temp, int left, int mid, int right) {
+        private static void merge(int[] array, int[] temp, int left, int mid, int right, MergeKernel kernel) {
+            if (array[mid] <= array[mid + 1]) {
+                return;
+            }
             System.arraycopy(array, left, temp, left, right - left + 1);
+            if (kernel != null) {
+                kernel.merge(temp, left, mid, mid + 1, right, array, left);
+                return;
+            }
 
             int i = left;      // pointer in left half
             int j = mid + 1;   // pointer in right half
@@ -126,6 +819,373 @@ public class ParallelMergeSort implements SortAlgorithm {
             }
         }
     }
-}
 
+    /**
+     * Object counterpart of {@link MergeSortTask}, ordering elements with a comparator.
+     * Ties are always taken from the left half, which makes the sort stable.
+     */
+    private static class ObjectMergeSortTask<T> extends RecursiveAction {
+
+        private final T[] array;
+        private final T[] temp;
+        private final int left;
+        private final int right;
+        private final int threshold;
+        private final Comparator<? super T> comparator;
+
+        ObjectMergeSortTask(T[] array, T[] temp, int left, int right, int threshold, Comparator<? super T> comparator) {
+            this.array = array;
+            this.temp = temp;
+            this.left = left;
+            this.right = right;
+            this.threshold = threshold;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            int length = right - left + 1;
+
+            if (length <= threshold) {
+                sequentialMergeSort(array, temp, left, right, comparator);
+                return;
+            }
+
+            int mid = left + (right - left) / 2;
+            invokeAll(new ObjectMergeSortTask<>(array, temp, left, mid, threshold, comparator),
+                    new ObjectMergeSortTask<>(array, temp, mid + 1, right, threshold, comparator));
+
+            merge(array, temp, left, mid, right, comparator);
+        }
+
+        private static <T> void sequentialMergeSort(T[] array, T[] temp, int left, int right,
+                                                    Comparator<? super T> comparator) {
+            if (left < right) {
+                int mid = left + (right - left) / 2;
+                sequentialMergeSort(array, temp, left, mid, comparator);
+                sequentialMergeSort(array, temp, mid + 1, right, comparator);
+                merge(array, temp, left, mid, right, comparator);
+            }
+        }
+
+        private static <T> void merge(T[] array, T[] temp, int left, int mid, int right,
+                                      Comparator<? super T> comparator) {
+            System.arraycopy(array, left, temp, left, right - left + 1);
+
+            int i = left;
+            int j = mid + 1;
+            int k = left;
+
+            while (i <= mid && j <= right) {
+                if (comparator.compare(temp[i], temp[j]) <= 0) {
+                    array[k++] = temp[i++];
+                } else {
+                    array[k++] = temp[j++];
+                }
+            }
+
+            while (i <= mid) {
+                array[k++] = temp[i++];
+            }
+
+            while (j <= right) {
+                array[k++] = temp[j++];
+            }
+        }
+    }
+
+    /**
+     * Task of {@link #partialSort}: leaves array[left..left+min(k, length)) with the
+     * k smallest values of its segment, sorted; the rest of the segment keeps the
+     * other values.
+     */
+    private static class PartialSortTask extends RecursiveAction {
+
+        private final int[] array;
+        private final int[] temp;
+        private final int left;
+        private final int right;
+        private final int k;
+        private final int threshold;
+        private final int insertionSortSize;
+        private final MergeKernel kernel;
+
+        PartialSortTask(int[] array, int[] temp, int left, int right, int k, int threshold, int insertionSortSize,
+                        MergeKernel kernel) {
+            this.array = array;
+            this.temp = temp;
+            this.left = left;
+            this.right = right;
+            this.k = k;
+            this.threshold = threshold;
+            this.insertionSortSize = insertionSortSize;
+            this.kernel = kernel;
+        }
+
+        @Override
+        protected void compute() {
+            int length = right - left + 1;
+            if (length <= threshold) {
+                int prefix = Math.min(k, length);
+                if (prefix < length) {
+                    ParallelSelection.select(array, left, right + 1, left + prefix - 1);
+                }
+                MergeSortTask.sequentialMergeSort(array, temp, left, left + prefix - 1, insertionSortSize, kernel);
+                return;
+            }
+
+            int mid = left + (right - left) / 2;
+            invokeAll(new PartialSortTask(array, temp, left, mid, k, threshold, insertionSortSize, kernel),
+                    new PartialSortTask(array, temp, mid + 1, right, k, threshold, insertionSortSize, kernel));
+            mergePrefixes(mid);
+        }
+
+        /**
+         * Merges the sorted prefixes left[0..kl) and right[0..kr) of the two halves, keeping
+         * only the first m = min(k, kl + kr) outputs at the front. Values that are not taken,
+         * and values the new prefix overwrites, are moved into the positions the prefixes
+         * free up, so the segment stays a permutation of its input. Costs O(k), not O(length).
+         */
+        private void mergePrefixes(int mid) {
+            int kl = Math.min(k, mid - left + 1);
+            int kr = Math.min(k, right - mid);
+            int m = Math.min(k, kl + kr);
+            if (m == kl && array[left + kl - 1] <= array[mid + 1]) {
+                return; // the left prefix is already the answer
+            }
+
+            int i = left;
+            int j = mid + 1;
+            int out = left;
+            int outEnd = left + m;
+            while (out < outEnd) {
+                if (j == mid + 1 + kr || (i < left + kl && array[i] <= array[j])) {
+                    temp[out++] = array[i++];
+                } else {
+                    temp[out++] = array[j++];
+                }
+            }
+
+            // leftovers: unused prefix values, then left-half values under the new prefix
+            int pos = outEnd;
+            System.arraycopy(array, i, temp, pos, left + kl - i);
+            pos += left + kl - i;
+            System.arraycopy(array, j, temp, pos, mid + 1 + kr - j);
+            pos += mid + 1 + kr - j;
+            if (outEnd <= mid + 1) {
+                System.arraycopy(array, left + kl, temp, pos, m - kl);
+                pos += m - kl;
+            }
+
+            System.arraycopy(temp, left, array, left, m);
+            System.arraycopy(temp, outEnd, array, Math.max(outEnd, mid + 1), pos - outEnd);
+        }
+    }
+
+    /**
+     * Sort-distinct over array[left..right]: returns the number of distinct values, which
+     * end up sorted at the start of the segment.
+     */
+    private static class DistinctSortTask extends RecursiveTask<Integer> {
+
+        private final int[] array;
+        private final int[] temp;
+        private final int left;
+        private final int right;
+        private final int threshold;
+        private final int insertionSortSize;
+        private final MergeKernel kernel;
+        private final ForkJoinPool pool;
+
+        DistinctSortTask(int[] array, int[] temp, int left, int right, int threshold, int insertionSortSize,
+                         MergeKernel kernel, ForkJoinPool pool) {
+            this.array = array;
+            this.temp = temp;
+            this.left = left;
+            this.right = right;
+            this.threshold = threshold;
+            this.insertionSortSize = insertionSortSize;
+            this.kernel = kernel;
+            this.pool = pool;
+        }
+
+        @Override
+        protected Integer compute() {
+            int length = right - left + 1;
+            if (length <= threshold) {
+                MergeSortTask.sequentialMergeSort(array, temp, left, right, insertionSortSize, kernel);
+                int count = 1;
+                for (int i = left + 1; i <= right; i++) {
+                    if (array[i] != array[left + count - 1]) {
+                        array[left + count++] = array[i];
+                    }
+                }
+                return count;
+            }
+
+            int mid = left + (right - left) / 2;
+            DistinctSortTask leftTask = new DistinctSortTask(array, temp, left, mid, threshold, insertionSortSize,
+                    kernel, pool);
+            DistinctSortTask rightTask = new DistinctSortTask(array, temp, mid + 1, right, threshold,
+                    insertionSortSize, kernel, pool);
+            invokeAll(leftTask, rightTask);
+            int leftCount = leftTask.join();
+            int rightCount = rightTask.join();
+
+            if (array[left + leftCount - 1] < array[mid + 1]) {
+                // disjoint and in order: close the gap
+                System.arraycopy(array, mid + 1, array, left + leftCount, rightCount);
+                return leftCount + rightCount;
+            }
+            if (leftCount + rightCount <= threshold) {
+                int count = SortedSetOps.Op.DISTINCT_UNION.apply(array, left, left + leftCount, array, mid + 1,
+                        mid + 1 + rightCount, temp, left);
+                System.arraycopy(temp, left, array, left, count);
+                return count;
+            }
+            SortedSetOps.Pieces pieces = SortedSetOps.combine(pool, threshold, SortedSetOps.Op.DISTINCT_UNION,
+                    array, left, left + leftCount, array, mid + 1, mid + 1 + rightCount, temp, left);
+            pieces.copyTo(pool, threshold, array, left);
+            return pieces.total;
+        }
+    }
+
+    /**
+     * RecursiveAction task merging two sorted runs src[lo1..hi1] and src[lo2..hi2]
+     * into dst starting at dstLo.
+     * <p>
+     * Runs whose combined length exceeds the threshold are split around the middle
+     * element of the longer run. Its rank in the other run is found by binary search
+     * (lower bound when the pivot comes from the left run, upper bound when it comes
+     * from the right run), which keeps ties in left-before-right order.
+     */
+    static class MergeTask extends RecursiveAction {
+
+        private final int[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final int[] dst;
+        private final int dstLo;
+        private final int threshold;
+        private final MergeKernel kernel;
+
+        MergeTask(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int dstLo, int threshold) {
+            this(src, lo1, hi1, lo2, hi2, dst, dstLo, threshold, null);
+        }
 
+        /**
+         * @param kernel merge loop for the sequential pieces, or null for {@link #mergeRuns}
+         */
+        MergeTask(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int dstLo, int threshold, MergeKernel kernel) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.dstLo = dstLo;
+            this.threshold = threshold;
+            this.kernel = kernel;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1 + 1;
+            int n2 = hi2 - lo2 + 1;
+
+            if (n1 + n2 <= threshold) {
+                if (kernel != null) {
+                    kernel.merge(src, lo1, hi1, lo2, hi2, dst, dstLo);
+                } else {
+                    mergeRuns(src, lo1, hi1, lo2, hi2, dst, dstLo);
+                }
+                return;
+            }
+
+            int m1;
+            int m2;
+            int pos;
+            MergeTask leftTask;
+            MergeTask rightTask;
+            if (n1 >= n2) {
+                // Pivot from the left run: right-run elements equal to it go after it
+                m1 = (lo1 + hi1) >>> 1;
+                m2 = lowerBound(src, lo2, hi2 + 1, src[m1]);
+                pos = dstLo + (m1 - lo1) + (m2 - lo2);
+                dst[pos] = src[m1];
+                leftTask = new MergeTask(src, lo1, m1 - 1, lo2, m2 - 1, dst, dstLo, threshold, kernel);
+                rightTask = new MergeTask(src, m1 + 1, hi1, m2, hi2, dst, pos + 1, threshold, kernel);
+            } else {
+                // Pivot from the right run: left-run elements equal to it go before it
+                m2 = (lo2 + hi2) >>> 1;
+                m1 = upperBound(src, lo1, hi1 + 1, src[m2]);
+                pos = dstLo + (m1 - lo1) + (m2 - lo2);
+                dst[pos] = src[m2];
+                leftTask = new MergeTask(src, lo1, m1 - 1, lo2, m2 - 1, dst, dstLo, threshold, kernel);
+                rightTask = new MergeTask(src, m1, hi1, m2 + 1, hi2, dst, pos + 1, threshold, kernel);
+            }
+
+            invokeAll(leftTask, rightTask);
+        }
+
+        /**
+         * Sequentially merges src[lo1..hi1] and src[lo2..hi2] into dst starting at k.
+         */
+        static void mergeRuns(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int k) {
+            int i = lo1;
+            int j = lo2;
+
+            while (i <= hi1 && j <= hi2) {
+                if (src[i] <= src[j]) {
+                    dst[k++] = src[i++];
+                } else {
+                    dst[k++] = src[j++];
+                }
+            }
+
+            while (i <= hi1) {
+                dst[k++] = src[i++];
+            }
+
+            while (j <= hi2) {
+                dst[k++] = src[j++];
+            }
+        }
+
+        /**
+         * First index in [from, to) whose value is &gt;= key, or to if none.
+         */
+        static int lowerBound(int[] a, int from, int to, int key) {
+            int lo = from;
+            int hi = to;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (a[mid] < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * First index in [from, to) whose value is &gt; key, or to if none.
+         */
+        static int upperBound(int[] a, int from, int to, int key) {
+            int lo = from;
+            int hi = to;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (a[mid] <= key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
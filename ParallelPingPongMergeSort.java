@@ -0,0 +1,113 @@
+package algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel merge sort (Fork/Join) using ping-pong buffers.
+ * <p>
+ * Same task structure as {@link ParallelMergeSort}, but the temp buffer is filled
+ * once before sorting and the source and destination roles swap at every recursion
+ * level. Each merge then writes directly into its destination, which removes the
+ * per-merge System.arraycopy and halves the memory traffic of each level.
+ */
+public class ParallelPingPongMergeSort implements SortAlgorithm {
+
+    private final int threshold;
+    private final boolean parallelMerge;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a ParallelPingPongMergeSort with a default threshold.
+     */
+    public ParallelPingPongMergeSort() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a ParallelPingPongMergeSort with a custom threshold.
+     *
+     * @param threshold minimum segment size to process in parallel
+     */
+    public ParallelPingPongMergeSort(int threshold) {
+        this(threshold, false);
+    }
+
+    /**
+     * Creates a ParallelPingPongMergeSort with a custom threshold and merge mode.
+     *
+     * @param threshold     minimum segment size to process in parallel
+     * @param parallelMerge if true, merges larger than the threshold run in parallel
+     */
+    public ParallelPingPongMergeSort(int threshold, boolean parallelMerge) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.threshold = threshold;
+        this.parallelMerge = parallelMerge;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    @Override
+    public void sort(int[] array) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+
+        int[] temp = array.clone();
+        pool.invoke(new PingPongTask(temp, array, 0, array.length - 1, threshold, parallelMerge));
+    }
+
+    /**
+     * Sorts [left..right] so that the result ends up in dst, using src as scratch.
+     * Both buffers hold the same elements in [left..right] when the task starts.
+     */
+    private static class PingPongTask extends RecursiveAction {
+
+        private final int[] src;
+        private final int[] dst;
+        private final int left;
+        private final int right;
+        private final int threshold;
+        private final boolean parallelMerge;
+
+        PingPongTask(int[] src, int[] dst, int left, int right, int threshold, boolean parallelMerge) {
+            this.src = src;
+            this.dst = dst;
+            this.left = left;
+            this.right = right;
+            this.threshold = threshold;
+            this.parallelMerge = parallelMerge;
+        }
+
+        @Override
+        protected void compute() {
+            int length = right - left + 1;
+
+            if (length <= threshold) {
+                sequentialSortInto(src, dst, left, right);
+                return;
+            }
+
+            int mid = left + (right - left) / 2;
+            // Children sort into src, so this level can merge straight into dst
+            invokeAll(new PingPongTask(dst, src, left, mid, threshold, parallelMerge),
+                    new PingPongTask(dst, src, mid + 1, right, threshold, parallelMerge));
+
+            if (parallelMerge) {
+                new ParallelMergeSort.MergeTask(src, left, mid, mid + 1, right, dst, left, threshold).invoke();
+            } else {
+                ParallelMergeSort.MergeTask.mergeRuns(src, left, mid, mid + 1, right, dst, left);
+            }
+        }
+
+        private static void sequentialSortInto(int[] src, int[] dst, int left, int right) {
+            if (left < right) {
+                int mid = left + (right - left) / 2;
+                sequentialSortInto(dst, src, left, mid);
+                sequentialSortInto(dst, src, mid + 1, right);
+                ParallelMergeSort.MergeTask.mergeRuns(src, left, mid, mid + 1, right, dst, left);
+            }
+        }
+    }
+}
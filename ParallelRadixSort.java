@@ -0,0 +1,187 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Parallel LSD radix sort for int[] using Java's Fork/Join framework.
+ * <p>
+ * The array is sorted in four passes of 8 bits, least significant digit first. The
+ * sign bit is flipped when extracting digits so negative values order before
+ * positive ones. Each pass has three parallel phases:
+ * <ol>
+ *   <li>every block counts its digits into its own histogram (no shared counters),</li>
+ *   <li>the histograms are turned into per-block write offsets with a prefix sum that
+ *       runs in parallel over the 256 digit columns,</li>
+ *   <li>every block scatters its elements to their offsets in the other buffer.</li>
+ * </ol>
+ * Blocks scatter in array order and each block scans left to right, so every pass is
+ * stable. A pass is skipped when all elements share the same digit. Inputs at or
+ * below the fallback threshold are handed to {@link ParallelMergeSort}.
+ */
+public class ParallelRadixSort implements SortAlgorithm {
+
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int MASK = RADIX - 1;
+    private static final int PASSES = Integer.SIZE / RADIX_BITS;
+
+    // Blocks smaller than this are not worth a separate histogram
+    private static final int MIN_BLOCK_SIZE = 1 << 14;
+
+    private final int fallbackThreshold;
+    private final ForkJoinPool pool;
+    private final SortAlgorithm fallback;
+
+    /**
+     * Creates a ParallelRadixSort with a default fallback threshold.
+     */
+    public ParallelRadixSort() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a ParallelRadixSort with a custom fallback threshold.
+     *
+     * @param fallbackThreshold arrays of at most this length are sorted with ParallelMergeSort
+     */
+    public ParallelRadixSort(int fallbackThreshold) {
+        if (fallbackThreshold <= 0) {
+            throw new IllegalArgumentException("Fallback threshold must be positive");
+        }
+        this.fallbackThreshold = fallbackThreshold;
+        this.pool = ForkJoinPool.commonPool();
+        this.fallback = new ParallelMergeSort(fallbackThreshold);
+    }
+
+    @Override
+    public void sort(int[] array) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+        if (array.length <= fallbackThreshold) {
+            fallback.sort(array);
+            return;
+        }
+
+        int n = array.length;
+        int blocks = (int) Math.max(1, Math.min((long) pool.getParallelism() * 4, n / MIN_BLOCK_SIZE));
+        int blockSize = (n + blocks - 1) / blocks;
+        blocks = (n + blockSize - 1) / blockSize;
+
+        int[] src = array;
+        int[] dst = new int[n];
+        int[][] counts = new int[blocks][RADIX];
+        int numBlocks = blocks;
+
+        for (int pass = 0; pass < PASSES; pass++) {
+            int shift = pass * RADIX_BITS;
+            int[] from = src;
+            int[] to = dst;
+
+            // 1) per-block histograms
+            forEachBlock(numBlocks, b -> {
+                int[] count = counts[b];
+                Arrays.fill(count, 0);
+                int end = Math.min(n, (b + 1) * blockSize);
+                for (int i = b * blockSize; i < end; i++) {
+                    count[digit(from[i], shift)]++;
+                }
+            });
+
+            if (isSingleDigit(counts, n)) {
+                continue; // every element has the same digit; this pass would not move anything
+            }
+
+            // 2) prefix sum: column totals in parallel, digit bases sequentially (256 entries)
+            int[] digitTotals = new int[RADIX];
+            forEachBlock(RADIX, d -> {
+                int sum = 0;
+                for (int b = 0; b < numBlocks; b++) {
+                    int c = counts[b][d];
+                    counts[b][d] = sum;
+                    sum += c;
+                }
+                digitTotals[d] = sum;
+            });
+            int[] digitBase = new int[RADIX];
+            for (int d = 1; d < RADIX; d++) {
+                digitBase[d] = digitBase[d - 1] + digitTotals[d - 1];
+            }
+
+            // 3) stable scatter into the other buffer
+            forEachBlock(numBlocks, b -> {
+                int[] offset = counts[b];
+                for (int d = 0; d < RADIX; d++) {
+                    offset[d] += digitBase[d];
+                }
+                int end = Math.min(n, (b + 1) * blockSize);
+                for (int i = b * blockSize; i < end; i++) {
+                    int value = from[i];
+                    to[offset[digit(value, shift)]++] = value;
+                }
+            });
+
+            src = to;
+            dst = from;
+        }
+
+        if (src != array) {
+            System.arraycopy(src, 0, array, 0, n);
+        }
+    }
+
+    /**
+     * Extracts the digit at the given shift, with the sign bit flipped so that
+     * negative values sort first.
+     */
+    private static int digit(int value, int shift) {
+        return ((value ^ Integer.MIN_VALUE) >>> shift) & MASK;
+    }
+
+    private static boolean isSingleDigit(int[][] counts, int n) {
+        for (int d = 0; d < RADIX; d++) {
+            int total = 0;
+            for (int[] count : counts) {
+                total += count[d];
+            }
+            if (total != 0) {
+                return total == n;
+            }
+        }
+        return true;
+    }
+
+    private void forEachBlock(int count, IntConsumer body) {
+        pool.invoke(new BlockTask(0, count, body));
+    }
+
+    /**
+     * RecursiveAction that runs body(i) for every i in [from, to), splitting the index
+     * range in halves until a single index is left.
+     */
+    private static class BlockTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final IntConsumer body;
+
+        BlockTask(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                body.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BlockTask(from, mid, body), new BlockTask(mid, to, body));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * Parallel sample sort for int[] using Java's Fork/Join framework.
+ * <p>
+ * Instead of log2(n / threshold) levels of merge passes over the whole array, the data
+ * is partitioned once into buckets whose value ranges do not overlap, and every bucket
+ * is then sorted on its own:
+ * <ol>
+ *   <li>a random sample of {@code OVERSAMPLING} elements per bucket is sorted and
+ *       every {@code OVERSAMPLING}-th sample becomes a splitter,</li>
+ *   <li>every block counts how many of its elements fall into each bucket (binary
+ *       search over the splitters),</li>
+ *   <li>a prefix sum over the counts gives every block its write offsets,</li>
+ *   <li>every block scatters its elements into a temp buffer,</li>
+ *   <li>every bucket is copied back and sorted with the sequential merge sort of
+ *       {@link ParallelMergeSort}, in parallel.</li>
+ * </ol>
+ * Each element is read and written about twice before its bucket is sorted, so memory
+ * traffic no longer grows with the number of merge levels. There are four buckets per
+ * worker to balance uneven buckets.
+ * <p>
+ * Every splitter also has an equality bucket for the values equal to it, which needs no
+ * sorting. With few distinct values the splitters land on the frequent values, so their
+ * copies end up in equality buckets instead of one oversized bucket. Inputs at or below
+ * the threshold, or too small to give every bucket a threshold's worth of elements, are
+ * handed to {@link ParallelMergeSort}.
+ */
+public class ParallelSampleSort implements SortAlgorithm {
+
+    private static final int BUCKETS_PER_WORKER = 4;
+    private static final int OVERSAMPLING = 32;
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+    private final SortAlgorithm fallback;
+
+    /**
+     * Creates a ParallelSampleSort with a default threshold.
+     */
+    public ParallelSampleSort() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a ParallelSampleSort with a custom threshold.
+     *
+     * @param threshold minimum bucket size; smaller inputs use ParallelMergeSort
+     */
+    public ParallelSampleSort(int threshold) {
+        this(threshold, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a ParallelSampleSort that runs in the given pool.
+     *
+     * @param threshold minimum bucket size; smaller inputs use ParallelMergeSort
+     * @param pool      pool to run the tasks in
+     */
+    public ParallelSampleSort(int threshold, ForkJoinPool pool) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null");
+        }
+        this.threshold = threshold;
+        this.pool = pool;
+        this.fallback = new ParallelMergeSort(threshold, pool);
+    }
+
+    @Override
+    public void sort(int[] array) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+        int n = array.length;
+        int buckets = (int) Math.min((long) pool.getParallelism() * BUCKETS_PER_WORKER, n / threshold);
+        if (buckets < 2) {
+            fallback.sort(array);
+            return;
+        }
+
+        int[] splitters = chooseSplitters(array, buckets);
+        // bucket 2i: values between splitters i-1 and i; bucket 2i+1: values equal to splitter i
+        int bucketCount = 2 * splitters.length + 1;
+
+        int blocks = buckets;
+        int blockSize = (int) (((long) n + blocks - 1) / blocks);
+        int[][] counts = new int[blocks][bucketCount];
+
+        // 1) per-block bucket histograms
+        forEachBlock(blocks, b -> {
+            int[] count = counts[b];
+            int end = (int) Math.min(n, (long) (b + 1) * blockSize);
+            for (int i = b * blockSize; i < end; i++) {
+                count[bucketOf(array[i], splitters)]++;
+            }
+        });
+
+        // 2) prefix sum: column totals in parallel, bucket starts sequentially
+        int[] bucketStart = new int[bucketCount + 1];
+        forEachBlock(bucketCount, c -> {
+            int sum = 0;
+            for (int b = 0; b < blocks; b++) {
+                int count = counts[b][c];
+                counts[b][c] = sum;
+                sum += count;
+            }
+            bucketStart[c + 1] = sum;
+        });
+        for (int c = 0; c < bucketCount; c++) {
+            bucketStart[c + 1] += bucketStart[c];
+        }
+
+        // 3) scatter into temp, block order preserved
+        int[] temp = new int[n];
+        forEachBlock(blocks, b -> {
+            int[] offset = counts[b];
+            for (int c = 0; c < bucketCount; c++) {
+                offset[c] += bucketStart[c];
+            }
+            int end = (int) Math.min(n, (long) (b + 1) * blockSize);
+            for (int i = b * blockSize; i < end; i++) {
+                int value = array[i];
+                temp[offset[bucketOf(value, splitters)]++] = value;
+            }
+        });
+
+        // 4) copy every bucket back and sort it; equality buckets are already sorted
+        forEachBlock(bucketCount, c -> {
+            int from = bucketStart[c];
+            int to = bucketStart[c + 1];
+            System.arraycopy(temp, from, array, from, to - from);
+            if (c % 2 == 0 && to - from > 1) {
+                ParallelMergeSort.sequentialSort(array, temp, from, to - 1);
+            }
+        });
+    }
+
+    /**
+     * Sorted, distinct splitters from a random sample of OVERSAMPLING * buckets elements.
+     */
+    private static int[] chooseSplitters(int[] array, int buckets) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] sample = new int[buckets * OVERSAMPLING];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = array[random.nextInt(array.length)];
+        }
+        Arrays.sort(sample);
+
+        int[] splitters = new int[buckets - 1];
+        int count = 0;
+        for (int i = 1; i < buckets; i++) {
+            int candidate = sample[i * OVERSAMPLING];
+            if (count == 0 || splitters[count - 1] != candidate) {
+                splitters[count++] = candidate;
+            }
+        }
+        return Arrays.copyOf(splitters, count);
+    }
+
+    /**
+     * Bucket of a value: 2i for values below splitter i (and above splitter i-1),
+     * 2i+1 for values equal to splitter i.
+     */
+    private static int bucketOf(int value, int[] splitters) {
+        int lo = 0;
+        int hi = splitters.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (splitters[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo < splitters.length && splitters[lo] == value ? 2 * lo + 1 : 2 * lo;
+    }
+
+    private void forEachBlock(int count, IntConsumer body) {
+        pool.invoke(new ForkJoinSupport.RangeTask(0, count, 1, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                body.accept(i);
+            }
+        }));
+    }
+}
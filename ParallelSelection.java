@@ -0,0 +1,150 @@
+package algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * Quickselect for int[], sequential and parallel; used by
+ * {@link ParallelMergeSort#nthElement(int[], int)} and the leaves of
+ * {@link ParallelMergeSort#partialSort(int[], int)}.
+ * <p>
+ * Both variants partition three ways around a pivot (less, equal, greater), so runs of
+ * duplicates finish in one round. Pivots are the median of three random samples, which
+ * keeps sorted and adversarial inputs at expected linear time.
+ * <p>
+ * The parallel variant runs one round per pivot while the active range is above the
+ * threshold: every block counts its elements per class, a short prefix sum turns the
+ * counts into write offsets, and every block scatters into the temp buffer, which is
+ * copied back in parallel. The range then shrinks to the class that holds the target
+ * index. Below the threshold the sequential variant finishes the job.
+ */
+final class ParallelSelection {
+
+    private static final int INSERTION_SORT_SIZE = 16;
+
+    private ParallelSelection() {
+    }
+
+    /**
+     * Rearranges array[lo..hi) so that array[n] holds the value it would have if the range
+     * were sorted, with no larger value before it and no smaller value after it.
+     *
+     * @return array[n]
+     */
+    static int select(int[] array, int lo, int hi, int n) {
+        while (hi - lo > INSERTION_SORT_SIZE) {
+            int pivot = pivot(array, lo, hi);
+
+            // Dutch national flag: [lo, lt) < pivot, [lt, i) == pivot, (gt, hi) > pivot
+            int lt = lo;
+            int gt = hi - 1;
+            int i = lo;
+            while (i <= gt) {
+                int value = array[i];
+                if (value < pivot) {
+                    array[i++] = array[lt];
+                    array[lt++] = value;
+                } else if (value > pivot) {
+                    array[i] = array[gt];
+                    array[gt--] = value;
+                } else {
+                    i++;
+                }
+            }
+
+            if (n < lt) {
+                hi = lt;
+            } else if (n > gt) {
+                lo = gt + 1;
+            } else {
+                return pivot;
+            }
+        }
+        ParallelMergeSort.binaryInsertionSort(array, lo, lo + 1, hi);
+        return array[n];
+    }
+
+    /**
+     * Parallel version of {@link #select} over the whole array, using temp (same length)
+     * as the scatter buffer.
+     */
+    static int parallelSelect(ForkJoinPool pool, int[] array, int[] temp, int n, int threshold) {
+        int lo = 0;
+        int hi = array.length;
+        int maxBlocks = Math.max(1, pool.getParallelism() * 4);
+
+        while (hi - lo > threshold) {
+            int pivot = pivot(array, lo, hi);
+            int from = lo;
+            int length = hi - lo;
+            int blockSize = Math.max(threshold, (length + maxBlocks - 1) / maxBlocks);
+            int blocks = (length + blockSize - 1) / blockSize;
+            int[][] counts = new int[blocks][3]; // less, equal, greater
+
+            forEachBlock(pool, blocks, b -> {
+                int[] count = counts[b];
+                int end = Math.min(from + length, from + (b + 1) * blockSize);
+                for (int i = from + b * blockSize; i < end; i++) {
+                    int value = array[i];
+                    count[value < pivot ? 0 : value == pivot ? 1 : 2]++;
+                }
+            });
+
+            // per-block offsets, class by class (few blocks, so sequential)
+            int less = 0;
+            int equal = 0;
+            for (int[] count : counts) {
+                less += count[0];
+                equal += count[1];
+            }
+            int[] base = {from, from + less, from + less + equal};
+            for (int[] count : counts) {
+                for (int c = 0; c < 3; c++) {
+                    int size = count[c];
+                    count[c] = base[c];
+                    base[c] += size;
+                }
+            }
+
+            forEachBlock(pool, blocks, b -> {
+                int[] offset = counts[b];
+                int end = Math.min(from + length, from + (b + 1) * blockSize);
+                for (int i = from + b * blockSize; i < end; i++) {
+                    int value = array[i];
+                    temp[offset[value < pivot ? 0 : value == pivot ? 1 : 2]++] = value;
+                }
+            });
+            ForkJoinSupport.invoke(pool, new ForkJoinSupport.RangeTask(from, from + length, threshold,
+                    (f, t) -> System.arraycopy(temp, f, array, f, t - f)));
+
+            if (n < from + less) {
+                hi = from + less;
+            } else if (n >= from + less + equal) {
+                lo = from + less + equal;
+            } else {
+                return pivot;
+            }
+        }
+        return select(array, lo, hi, n);
+    }
+
+    /**
+     * Median of three random samples from array[lo..hi).
+     */
+    private static int pivot(int[] array, int lo, int hi) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = array[random.nextInt(lo, hi)];
+        int b = array[random.nextInt(lo, hi)];
+        int c = array[random.nextInt(lo, hi)];
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void forEachBlock(ForkJoinPool pool, int blocks, IntConsumer body) {
+        ForkJoinSupport.invoke(pool, new ForkJoinSupport.RangeTask(0, blocks, 1, (from, to) -> {
+            for (int b = from; b < to; b++) {
+                body.accept(b);
+            }
+        }));
+    }
+}
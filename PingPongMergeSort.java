@@ -0,0 +1,62 @@
+package algorithms;
+
+/**
+ * Sequential merge sort that alternates the roles of the array and the temp buffer
+ * between recursion levels ("ping-pong" merging).
+ * <p>
+ * {@link SequentialMergeSort} copies every range into the temp buffer before merging
+ * it back, so each level moves every element twice. Here the buffer is filled once
+ * up front; after that, each level merges from one buffer straight into the other,
+ * so each element is moved exactly once per level.
+ */
+public class PingPongMergeSort implements SortAlgorithm {
+
+    @Override
+    public void sort(int[] array) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+
+        int[] temp = array.clone();
+        sortInto(temp, array, 0, array.length - 1);
+    }
+
+    /**
+     * Sorts [left..right] so that the result ends up in dst, using src as scratch.
+     * Both buffers must hold the same elements in [left..right] on entry.
+     */
+    private void sortInto(int[] src, int[] dst, int left, int right) {
+        if (left < right) {
+            int mid = left + (right - left) / 2;
+            // Sort both halves into src, then merge them back into dst
+            sortInto(dst, src, left, mid);
+            sortInto(dst, src, mid + 1, right);
+            merge(src, dst, left, mid, right);
+        }
+    }
+
+    /**
+     * Merges src[left..mid] and src[mid+1..right] into dst[left..right].
+     */
+    private void merge(int[] src, int[] dst, int left, int mid, int right) {
+        int i = left;
+        int j = mid + 1;
+        int k = left;
+
+        while (i <= mid && j <= right) {
+            if (src[i] <= src[j]) {
+                dst[k++] = src[i++];
+            } else {
+                dst[k++] = src[j++];
+            }
+        }
+
+        while (i <= mid) {
+            dst[k++] = src[i++];
+        }
+
+        while (j <= right) {
+            dst[k++] = src[j++];
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package algorithms;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Thread-safe pool of int[] scratch buffers that the merge sorts reuse across calls.
+ * <p>
+ * Buffers are bucketed by size: a lease for n elements is served by a buffer whose
+ * length is n rounded up to the next power of two. Only buffers of exactly that
+ * bucket length are reused, so a small sort never pins a huge buffer.
+ * <p>
+ * Idle buffers are kept in release order. When returning a buffer would push the
+ * retained memory above the cap, the least recently released buffers are evicted
+ * first. A buffer larger than the whole cap is simply dropped.
+ */
+public class ScratchBufferPool {
+
+    private static final int MAX_BUCKET_LENGTH = 1 << 30;
+
+    private final long maxRetainedBytes;
+    private final ArrayDeque<int[]> idle = new ArrayDeque<>(); // oldest release first
+    private long retainedBytes;
+
+    private long leases;
+    private long hits;
+    private long allocations;
+    private long allocatedBytes;
+    private long evictions;
+
+    /**
+     * Creates a pool that retains at most the given number of bytes of idle buffers.
+     *
+     * @param maxRetainedBytes cap on memory held by idle buffers
+     */
+    public ScratchBufferPool(long maxRetainedBytes) {
+        if (maxRetainedBytes < 0) {
+            throw new IllegalArgumentException("Max retained bytes must not be negative");
+        }
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * Returns a buffer with at least minLength elements. Its contents are undefined.
+     * The caller should hand it back with {@link #release(int[])} when done.
+     */
+    public synchronized int[] lease(int minLength) {
+        if (minLength < 0) {
+            throw new IllegalArgumentException("Length must not be negative");
+        }
+        leases++;
+        int bucketLength = bucketLength(minLength);
+
+        // Most recently released buffers are the most likely to still be in cache
+        Iterator<int[]> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            int[] buffer = it.next();
+            if (buffer.length == bucketLength) {
+                it.remove();
+                retainedBytes -= bytesOf(buffer);
+                hits++;
+                return buffer;
+            }
+        }
+
+        allocations++;
+        allocatedBytes += 4L * bucketLength;
+        return new int[bucketLength];
+    }
+
+    /**
+     * Returns a previously leased buffer to the pool.
+     */
+    public synchronized void release(int[] buffer) {
+        if (buffer == null) {
+            return;
+        }
+        long bytes = bytesOf(buffer);
+        if (bytes > maxRetainedBytes) {
+            evictions++;
+            return;
+        }
+        while (retainedBytes + bytes > maxRetainedBytes) {
+            retainedBytes -= bytesOf(idle.pollFirst());
+            evictions++;
+        }
+        idle.addLast(buffer);
+        retainedBytes += bytes;
+    }
+
+    /**
+     * Drops all idle buffers.
+     */
+    public synchronized void clear() {
+        idle.clear();
+        retainedBytes = 0;
+    }
+
+    /**
+     * Returns a snapshot of the pool counters.
+     */
+    public synchronized Stats stats() {
+        return new Stats(leases, hits, allocations, allocatedBytes, evictions, retainedBytes);
+    }
+
+    private static int bucketLength(int minLength) {
+        if (minLength <= 1) {
+            return 1;
+        }
+        if (minLength > MAX_BUCKET_LENGTH) {
+            return minLength;
+        }
+        return Integer.highestOneBit(minLength - 1) << 1;
+    }
+
+    private static long bytesOf(int[] buffer) {
+        return 4L * buffer.length;
+    }
+
+    /**
+     * Immutable snapshot of pool activity.
+     */
+    public static final class Stats {
+        public final long leases;
+        public final long hits;
+        public final long allocations;
+        public final long allocatedBytes;
+        public final long evictions;
+        public final long retainedBytes;
+
+        Stats(long leases, long hits, long allocations, long allocatedBytes, long evictions, long retainedBytes) {
+            this.leases = leases;
+            this.hits = hits;
+            this.allocations = allocations;
+            this.allocatedBytes = allocatedBytes;
+            this.evictions = evictions;
+            this.retainedBytes = retainedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "leases=" + leases + ", hits=" + hits + ", allocations=" + allocations
+                    + ", allocatedBytes=" + allocatedBytes + ", evictions=" + evictions
+                    + ", retainedBytes=" + retainedBytes;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package algorithms;
+
+/**
+ * Sequential merge sort specialized for double[] (same algorithm as {@link SequentialMergeSort}).
+ * <p>
+ * Elements are compared with {@link Double#compare(double, double)}, the same total order as
+ * {@link java.util.Arrays#sort(double[])}: -0.0 sorts before 0.0 and NaN sorts last.
+ */
+public class SequentialDoubleMergeSort implements DoubleSortAlgorithm {
+
+    @Override
+    public void sort(double[] array) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+
+        double[] temp = new double[array.length];
+        mergeSort(array, temp, 0, array.length - 1);
+    }
+
+    /**
+     * Standard recursive merge sort of [left..right]; also used for small parallel segments.
+     */
+    static void mergeSort(double[] array, double[] temp, int left, int right) {
+        if (left < right) {
+            int mid = left + (right - left) / 2;
+            mergeSort(array, temp, left, mid);
+            mergeSort(array, temp, mid + 1, right);
+            merge(array, temp, left, mid, right);
+        }
+    }
+
+    /**
+     * Merges two sorted subarrays: [left..mid] and [mid+1..right] in-place using a temp buffer.
+     */
+    static void merge(double[] array, double[] temp, int left, int mid, int right) {
+        System.arraycopy(array, left, temp, left, right - left + 1);
+
+        int i = left;
+        int j = mid + 1;
+        int k = left;
+
+        while (i <= mid && j <= right) {
+            if (Double.compare(temp[i], temp[j]) <= 0) {
+                array[k++] = temp[i++];
+            } else {
+                array[k++] = temp[j++];
+            }
+        }
+
+        while (i <= mid) {
+            array[k++] = temp[i++];
+        }
+
+        while (j <= right) {
+            array[k++] = temp[j++];
+        }
+    }
+}
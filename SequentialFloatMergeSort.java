@@ -0,0 +1,59 @@
+package algorithms;
+
+/**
+ * Sequential merge sort specialized for float[] (same algorithm as {@link SequentialMergeSort}).
+ * <p>
+ * Elements are compared with {@link Float#compare(float, float)}, the same total order as
+ * {@link java.util.Arrays#sort(float[])}: -0.0 sorts before 0.0 and NaN sorts last.
+ */
+public class SequentialFloatMergeSort implements FloatSortAlgorithm {
+
+    @Override
+    public void sort(float[] array) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+
+        float[] temp = new float[array.length];
+        mergeSort(array, temp, 0, array.length - 1);
+    }
+
+    /**
+     * Standard recursive merge sort of [left..right]; also used for small parallel segments.
+     */
+    static void mergeSort(float[] array, float[] temp, int left, int right) {
+        if (left < right) {
+            int mid = left + (right - left) / 2;
+            mergeSort(array, temp, left, mid);
+            mergeSort(array, temp, mid + 1, right);
+            merge(array, temp, left, mid, right);
+        }
+    }
+
+    /**
+     * Merges two sorted subarrays: [left..mid] and [mid+1..right] in-place using a temp buffer.
+     */
+    static void merge(float[] array, float[] temp, int left, int mid, int right) {
+        System.arraycopy(array, left, temp, left, right - left + 1);
+
+        int i = left;
+        int j = mid + 1;
+        int k = left;
+
+        while (i <= mid && j <= right) {
+            if (Float.compare(temp[i], temp[j]) <= 0) {
+                array[k++] = temp[i++];
+            } else {
+                array[k++] = temp[j++];
+            }
+        }
+
+        while (i <= mid) {
+            array[k++] = temp[i++];
+        }
+
+        while (j <= right) {
+            array[k++] = temp[j++];
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package algorithms;
+
+/**
+ * Sequential merge sort specialized for long[] (same algorithm as {@link SequentialMergeSort}).
+ */
+public class SequentialLongMergeSort implements LongSortAlgorithm {
+
+    @Override
+    public void sort(long[] array) {
+        if (array == null || array.length <= 1) {
+            return;
+        }
+
+        long[] temp = new long[array.length];
+        mergeSort(array, temp, 0, array.length - 1);
+    }
+
+    /**
+     * Standard recursive merge sort of [left..right]; also used for small parallel segments.
+     */
+    static void mergeSort(long[] array, long[] temp, int left, int right) {
+        if (left < right) {
+            int mid = left + (right - left) / 2;
+            mergeSort(array, temp, left, mid);
+            mergeSort(array, temp, mid + 1, right);
+            merge(array, temp, left, mid, right);
+        }
+    }
+
+    /**
+     * Merges two sorted subarrays: [left..mid] and [mid+1..right] in-place using a temp buffer.
+     */
+    static void merge(long[] array, long[] temp, int left, int mid, int right) {
+        System.arraycopy(array, left, temp, left, right - left + 1);
+
+        int i = left;
+        int j = mid + 1;
+        int k = left;
+
+        while (i <= mid && j <= right) {
+            if (temp[i] <= temp[j]) {
+                array[k++] = temp[i++];
+            } else {
+                array[k++] = temp[j++];
+            }
+        }
+
+        while (i <= mid) {
+            array[k++] = temp[i++];
+        }
+
+        while (j <= right) {
+            array[k++] = temp[j++];
+        }
+    }
+}
@@ -1,6 +1,29 @@
 package algorithms;
 public class SequentialMergeSort implements SortAlgorithm {
 
+    private final ScratchBufferPool scratchPool;
+    private final int insertionSortSize;
+
+    public SequentialMergeSort() {
+        this(null);
+    }
+
+    public SequentialMergeSort(ScratchBufferPool scratchPool) { //pool to lease temp buffers from, null = allocate per call
+        this(scratchPool, 1);
+    }
+
+    public SequentialMergeSort(ScratchBufferPool scratchPool, int insertionSortSize) { //blocks this small use binary insertion sort, 1 = pure merge sort
+        if (insertionSortSize <= 0) {
+            throw new IllegalArgumentException("Insertion sort size must be positive");
+        }
+        this.scratchPool = scratchPool;
+        this.insertionSortSize = insertionSortSize;
+    }
+
+    public ScratchBufferPool getScratchPool() {
+        return scratchPool;
+    }
+
     private boolean isSorted(int[] array) { //to check array sorted or not
         for (int i = 1; i < array.length; i++) {
             if (array[i - 1] > array[i]) {
@@ -14,20 +37,26 @@ public class SequentialMergeSort implements SortAlgorithm {
     public void sort(int[] array) {
         
         if (array == null || array.length <= 1) { //edge case
-            System.out.println("array has no elements or only one element");
-            return; 
+            return;
         }
 
-        if (isSorted(array)) {//edge case
-            System.out.println("array is already sorted");
-            return; 
+        if (isSorted(array)) { //edge case: nothing to do (no output, benchmarks time this path)
+            return;
+        }
+        int[] temp = scratchPool == null ? new int[array.length] : scratchPool.lease(array.length);
+        try {
+            mergeSort(array, 0, array.length - 1, temp);
+        } finally {
+            if (scratchPool != null) {
+                scratchPool.release(temp);
+            }
         }
-        int[] temp = new int[array.length];
-        mergeSort(array, 0, array.length - 1, temp);
     }
 
     private void mergeSort(int[] array, int left, int right, int[] temp) {
-        if (left < right) {
+        if (right - left < insertionSortSize) { //small block: hybrid leaf
+            ParallelMergeSort.binaryInsertionSort(array, left, left + 1, right + 1);
+        } else if (left < right) {
             int mid = left + (right - left) / 2;
             mergeSort(array, left, mid, temp);
             mergeSort(array, mid + 1, right, temp);
@@ -36,6 +65,9 @@ public class SequentialMergeSort implements SortAlgorithm {
     }
 
     private void merge(int[] array, int left, int mid, int right, int[] temp) {
+        if (array[mid] <= array[mid + 1]) { //halves already in order
+            return;
+        }
         System.arraycopy(array, left, temp, left, right - left + 1);
 
         int i = left;     
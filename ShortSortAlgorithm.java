@@ -0,0 +1,4 @@
+package algorithms;
+public interface ShortSortAlgorithm {
+    void sort(short[] array);
+}
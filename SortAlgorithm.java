@@ -1,5 +1,19 @@
-
 package algorithms;
+
+import java.util.concurrent.CompletableFuture;
+
 public interface SortAlgorithm {
     void sort(int[] array);
+
+    /**
+     * Sorts the array in the background and completes with it. The default runs
+     * {@link #sort(int[])} in the common pool and cannot stop a running sort;
+     * cancelling only abandons the result.
+     */
+    default CompletableFuture<int[]> sortAsync(int[] array) {
+        return CompletableFuture.supplyAsync(() -> {
+            sort(array);
+            return array;
+        });
+    }
 }
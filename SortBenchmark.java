@@ -1,53 +1,87 @@
 package algorithms;
 
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 /**
  * Generates input arrays, runs different sort algorithms, and measures execution time.
  * <p>
  * Compares:
  * - SequentialMergeSort
- * - ParallelMergeSort (Fork/Join)
+ * - ParallelMergeSort (Fork/Join), with a fixed and with an auto-tuned threshold
+ * - ParallelMergeSort with parallel merge
+ * - Ping-pong buffer variants of both merge sorts
+ * - NaturalMergeSort (adaptive run detection)
+ * - ParallelRadixSort (LSD radix sort)
+ * - ParallelSampleSort (one partitioning pass, then independent bucket sorts)
  * - Arrays.sort
  * - Arrays.parallelSort
  * <p>
- * It tests multiple sizes and input patterns (random, reverse-sorted) and reports
- * average runtimes.
+ * It tests multiple sizes and the input patterns from {@link DataGenerators} (or only the
+ * patterns named on the command line) and reports average runtimes. A second section sorts many
+ * mid-sized batches with and without a {@link ScratchBufferPool} and reports allocated bytes per
+ * call and GC activity. A third section compares the generic comparator sort of ParallelMergeSort
+ * with Arrays.parallelSort(T[], Comparator). Further sections sweep the hybrid insertion-sort
+ * block size, compare merge kernels, measure instrumentation cost, compare top-k and selection
+ * with a full sort, merge sorted shards against concatenate-and-sort, feed batches to a
+ * StreamingSorter, sort multi-column rows with and without key packing, deduplicate while
+ * sorting, combine sorted sets, query a SortedIntIndex (build, search layouts, reload from disk),
+ * and run the parallel sorts at several worker counts.
  */
 public class SortBenchmark {
 
     // Benchmarked sizes (includes the larger sizes required by the coversheet/results table)
     private static final int[] SIZES = {100_000, 500_000, 1_000_000};
     private static final int RUNS_PER_CASE = 5;
-    private static final Random RANDOM = new Random();
+    // Extra size for the merge kernel section, beyond the caches (fits in -Xmx512m)
+    private static final int KERNEL_LARGE_SIZE = 10_000_000;
+    private static final Random RANDOM = new Random(42); // seeded so runs see the same inputs
 
-    public static void main(String[] args) {
+    // Scratch pool section: many mid-sized batches, as in a batch-sorting service
+    private static final int BATCH_SIZE = 50_000;
+    private static final int BATCH_CALLS = 500;
+    private static final int BATCH_WARMUP_CALLS = 50;
+
+    public static void main(String[] args) throws IOException {
         SortAlgorithm arraysSort = new ArraysSortAlgorithm();
         SortAlgorithm arraysParallelSort = new ArraysParallelSortAlgorithm();
 
-        String[] algorithmNames = {"SequentialMergeSort", "ParallelMergeSort", "Arrays.sort", "Arrays.parallelSort"};
-        String[] patterns = {"Random", "Reverse"};
+        String[] algorithmNames = {"SequentialMergeSort", "ParallelMergeSort", "ParallelMergeSort-auto", "ParallelMergeSort-PM", "PingPongMergeSort", "ParallelPingPong", "NaturalMergeSort", "ParallelRadixSort", "ParallelSampleSort", "Arrays.sort", "Arrays.parallelSort"};
+        String[] patterns = args.length > 0 ? args : DataGenerators.names().toArray(new String[0]);
 
         System.out.println("=== Sort Benchmark ===");
         System.out.println("Runs per case: " + RUNS_PER_CASE);
         System.out.println();
 
         for (int size : SIZES) {
-            // Use threshold=10_000 for all benchmarked sizes.
+            // Fixed threshold=10_000 for all benchmarked sizes (ParallelMergeSort-auto picks its own per call).
             int parallelThreshold = 10_000;
 
             SortAlgorithm seq = new SequentialMergeSort();
             SortAlgorithm par = new ParallelMergeSort(parallelThreshold);
-            SortAlgorithm[] algorithms = {seq, par, arraysSort, arraysParallelSort};
+            SortAlgorithm parAuto = ParallelMergeSort.autoTuned();
+            SortAlgorithm parMerge = new ParallelMergeSort(parallelThreshold, true);
+            SortAlgorithm seqPingPong = new PingPongMergeSort();
+            SortAlgorithm parPingPong = new ParallelPingPongMergeSort(parallelThreshold);
+            SortAlgorithm natural = new NaturalMergeSort(parallelThreshold);
+            SortAlgorithm radix = new ParallelRadixSort(parallelThreshold);
+            SortAlgorithm sample = new ParallelSampleSort(parallelThreshold);
+            SortAlgorithm[] algorithms = {seq, par, parAuto, parMerge, seqPingPong, parPingPong, natural, radix, sample, arraysSort, arraysParallelSort};
 
             for (String pattern : patterns) {
-                int[] baseArray;
-                if ("Random".equals(pattern)) {
-                    baseArray = generateRandomArray(size);
-                } else {
-                    baseArray = generateReverseSortedArray(size);
-                }
+                int[] baseArray = DataGenerators.forName(pattern).generate(size, RANDOM);
 
                 System.out.println("Size = " + size + ", Pattern = " + pattern + ", Parallel threshold = " + parallelThreshold);
                 for (int i = 0; i < algorithms.length; i++) {
@@ -58,6 +92,562 @@ public class SortBenchmark {
                 System.out.println();
             }
         }
+
+        benchmarkScratchPool();
+        benchmarkObjects();
+        benchmarkInsertionSortSize();
+        benchmarkMergeKernels();
+        benchmarkInstrumentation();
+        benchmarkPartialSort();
+        benchmarkKWayMerge();
+        benchmarkStreaming();
+        benchmarkColumnar();
+        benchmarkDistinct();
+        benchmarkSortedIndex();
+        benchmarkWorkerCounts();
+    }
+
+    /**
+     * ParallelSampleSort, ParallelMergeSort and Arrays.parallelSort with 1, 2, 4, ... workers
+     * up to the number of available processors. Each count gets its own pool; Arrays.parallelSort
+     * is started from inside that pool, so its tasks run there too.
+     */
+    private static void benchmarkWorkerCounts() {
+        int size = SIZES[SIZES.length - 1];
+        int[] base = generateRandomArray(size);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("=== Worker counts (size = " + size + ", Random, " + cores + " processors) ===");
+        for (int workers = 1; ; workers = Math.min(cores, workers * 2)) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            try {
+                long sampleNanos = benchmarkAlgorithm(new ParallelSampleSort(10_000, pool), base, RUNS_PER_CASE);
+                long mergeNanos = benchmarkAlgorithm(new ParallelMergeSort(10_000, pool), base, RUNS_PER_CASE);
+                long arraysNanos = benchmarkAlgorithm(a -> pool.submit(() -> Arrays.parallelSort(a)).join(), base, RUNS_PER_CASE);
+                System.out.printf("workers = %-3d : ParallelSampleSort %.1f ms, ParallelMergeSort %.1f ms, Arrays.parallelSort %.1f ms%n",
+                        workers, sampleNanos / 1_000_000.0, mergeNanos / 1_000_000.0, arraysNanos / 1_000_000.0);
+            } finally {
+                pool.shutdown();
+            }
+            if (workers == cores) {
+                break;
+            }
+        }
+        System.out.println();
+    }
+
+    /**
+     * SortedIntIndex: build cost per layout, batched lower-bound queries against a
+     * sequential Arrays.binarySearch loop, and reloading a saved index against sorting again.
+     */
+    private static void benchmarkSortedIndex() throws IOException {
+        int size = 8 * SIZES[SIZES.length - 1]; // larger than the CPU caches
+        int[] base = generateRandomArray(size);
+        int[] queries = generateRandomArray(SIZES[SIZES.length - 1]);
+        ParallelMergeSort par = new ParallelMergeSort(10_000);
+        System.out.println("=== Sorted index (size = " + size + ", " + queries.length + " lower-bound queries) ===");
+
+        int[] sorted = sorted(par, base.clone());
+        int[] expected = new int[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            int pos = Arrays.binarySearch(sorted, queries[i]);
+            while (pos > 0 && sorted[pos - 1] == queries[i]) {
+                pos--; // binarySearch may hit any copy; the index counts values strictly below
+            }
+            expected[i] = pos >= 0 ? pos : -pos - 1;
+        }
+        long binarySearchNanos = averageNanos(q -> {
+            int[] result = new int[q.length];
+            for (int i = 0; i < q.length; i++) {
+                int pos = Arrays.binarySearch(sorted, q[i]);
+                while (pos > 0 && sorted[pos - 1] == q[i]) {
+                    pos--;
+                }
+                result[i] = pos >= 0 ? pos : -pos - 1;
+            }
+            return result;
+        }, queries, expected);
+
+        Path file = Files.createTempFile("sorted-index-benchmark", ".idx");
+        try {
+            for (boolean eytzinger : new boolean[]{false, true}) {
+                long buildStart = System.nanoTime();
+                SortedIntIndex index = SortedIntIndex.build(base, par, eytzinger);
+                long buildNanos = System.nanoTime() - buildStart;
+                long queryNanos = averageNanos(index::lowerBounds, queries, expected);
+                long singleNanos = averageNanos(q -> {
+                    int[] result = new int[q.length];
+                    for (int i = 0; i < q.length; i++) {
+                        result[i] = index.lowerBound(q[i]);
+                    }
+                    return result;
+                }, queries, expected);
+
+                index.save(file);
+                long loadStart = System.nanoTime();
+                SortedIntIndex loaded = SortedIntIndex.load(file);
+                long loadNanos = System.nanoTime() - loadStart;
+                long loadedQueryNanos = averageNanos(loaded::lowerBounds, queries, expected);
+                System.out.printf("%-10s : build %.1f ms, batch %.1f ms, one by one %.1f ms; load %.2f ms, "
+                                + "batch on mapped file %.1f ms%n", eytzinger ? "Eytzinger" : "sorted",
+                        buildNanos / 1_000_000.0, queryNanos / 1_000_000.0, singleNanos / 1_000_000.0,
+                        loadNanos / 1_000_000.0, loadedQueryNanos / 1_000_000.0);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.printf("Arrays.binarySearch loop %.1f ms%n", binarySearchNanos / 1_000_000.0);
+        System.out.println();
+    }
+
+    /**
+     * sortDistinct against a sort followed by a deduplication pass, and SortedSetOps
+     * against the sequential two-pointer kernels.
+     */
+    private static void benchmarkDistinct() {
+        int size = SIZES[SIZES.length - 1];
+        ParallelMergeSort par = new ParallelMergeSort(10_000);
+        Random random = new Random(42);
+        System.out.println("=== Sort-distinct and set operations (size = " + size + ") ===");
+        for (int range : new int[]{1_000, size / 10, Integer.MAX_VALUE}) {
+            int[] base = new int[size];
+            for (int i = 0; i < size; i++) {
+                base[i] = range == Integer.MAX_VALUE ? random.nextInt() : random.nextInt(range);
+            }
+            int[] expected = Arrays.stream(base).distinct().sorted().toArray();
+
+            long distinctNanos = averageNanos(a -> Arrays.copyOf(a, par.sortDistinct(a)), base, expected);
+            long twoPassNanos = averageNanos(a -> {
+                par.sort(a);
+                int count = a.length == 0 ? 0 : 1;
+                for (int i = 1; i < a.length; i++) {
+                    if (a[i] != a[count - 1]) {
+                        a[count++] = a[i];
+                    }
+                }
+                return Arrays.copyOf(a, count);
+            }, base, expected);
+            System.out.printf("values in [0, %s) : sortDistinct %.1f ms (%d distinct), sort + dedupe pass %.1f ms%n",
+                    range == Integer.MAX_VALUE ? "2^31" : String.valueOf(range), distinctNanos / 1_000_000.0,
+                    expected.length, twoPassNanos / 1_000_000.0);
+        }
+
+        int[] a = generateRandomArray(size);
+        int[] b = generateRandomArray(size);
+        a = Arrays.copyOf(a, par.sortDistinct(a));
+        b = Arrays.copyOf(b, par.sortDistinct(b));
+        SortedSetOps ops = new SortedSetOps(10_000);
+        SortedSetOps.Op[] kinds = {SortedSetOps.Op.UNION, SortedSetOps.Op.INTERSECTION, SortedSetOps.Op.DIFFERENCE};
+        for (SortedSetOps.Op kind : kinds) {
+            int[] left = a;
+            int[] right = b;
+            Function<int[], int[]> parallel = kind == SortedSetOps.Op.UNION ? x -> ops.union(left, right)
+                    : kind == SortedSetOps.Op.INTERSECTION ? x -> ops.intersection(left, right)
+                    : x -> ops.difference(left, right);
+            int[] expected = parallel.apply(null);
+            long parallelNanos = averageNanos(parallel, expected, expected);
+            long sequentialNanos = averageNanos(x -> {
+                int[] dst = new int[(int) kind.bound(left.length, right.length)];
+                return Arrays.copyOf(dst, kind.apply(left, 0, left.length, right, 0, right.length, dst, 0));
+            }, expected, expected);
+            System.out.printf("%-12s : parallel %.1f ms, sequential kernel %.1f ms (result %d)%n",
+                    kind.name().toLowerCase(), parallelNanos / 1_000_000.0, sequentialNanos / 1_000_000.0, expected.length);
+        }
+        System.out.println();
+    }
+
+    /**
+     * ColumnarSort on (region asc, ts desc [, id asc]) rows with packed keys, column by
+     * column, and as an Arrays.parallelSort of boxed row indices with a comparator.
+     */
+    private static void benchmarkColumnar() {
+        int size = SIZES[SIZES.length - 1];
+        Random random = new Random(42);
+        int[] region = new int[size];
+        long[] ts = new long[size];
+        int[] id = new int[size];
+        for (int i = 0; i < size; i++) {
+            region[i] = random.nextInt(50);
+            ts[i] = 1_700_000_000_000L + random.nextInt(1 << 30) * 64L; // 36-bit range
+            id[i] = random.nextInt(size);
+        }
+        ColumnarSort packed = new ColumnarSort(10_000);
+        ColumnarSort unpacked = new ColumnarSort(10_000, false);
+        System.out.println("=== Multi-column sort (rows = " + size + ", Random) ===");
+
+        ColumnarSort.SortKey[][] orders = {
+                {ColumnarSort.asc(region), ColumnarSort.desc(ts)},
+                {ColumnarSort.asc(region), ColumnarSort.desc(ts), ColumnarSort.asc(id)}};
+        for (ColumnarSort.SortKey[] keys : orders) {
+            Comparator<Integer> order = Comparator.<Integer>comparingInt(r -> region[r])
+                    .thenComparing(r -> ts[r], Comparator.reverseOrder());
+            if (keys.length == 3) {
+                order = order.thenComparingInt(r -> id[r]);
+            }
+            Comparator<Integer> rows = order;
+            int[] expected = unpacked.argsort(keys);
+
+            long packedNanos = averageNanos(a -> packed.argsort(keys), expected, expected);
+            long unpackedNanos = averageNanos(a -> unpacked.argsort(keys), expected, expected);
+            long boxedNanos = averageNanos(a -> {
+                Integer[] boxed = new Integer[size];
+                Arrays.setAll(boxed, i -> i);
+                Arrays.parallelSort(boxed, rows);
+                return Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+            }, expected, expected);
+            System.out.printf("keys = %d (%s) : packed %.1f ms, column by column %.1f ms, boxed rows + Arrays.parallelSort %.1f ms%n",
+                    keys.length, packed.layout(keys), packedNanos / 1_000_000.0, unpackedNanos / 1_000_000.0,
+                    boxedNanos / 1_000_000.0);
+        }
+        System.out.println();
+    }
+
+    /**
+     * StreamingSorter fed with batches against buffering everything and sorting at the
+     * end, plus the cost of reading sorted output from a streaming sorter that has all data.
+     */
+    private static void benchmarkStreaming() {
+        int size = SIZES[SIZES.length - 1];
+        int batchSize = 10_000;
+        int[] base = generateRandomArray(size);
+        int[] expected = base.clone();
+        Arrays.sort(expected);
+        ParallelMergeSort par = new ParallelMergeSort(10_000);
+        System.out.println("=== Streaming batches (total = " + size + ", batch = " + batchSize + ", Random) ===");
+
+        long streamNanos = averageNanos(a -> {
+            StreamingSorter streaming = new StreamingSorter(par, 4);
+            for (int from = 0; from < a.length; from += batchSize) {
+                streaming.add(a, from, Math.min(a.length, from + batchSize));
+            }
+            return streaming.toArray();
+        }, base, expected);
+        long bufferNanos = averageNanos(a -> {
+            int[] buffer = new int[batchSize];
+            int count = 0;
+            for (int from = 0; from < a.length; from += batchSize) {
+                int length = Math.min(a.length, from + batchSize) - from;
+                if (count + length > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.max(count + length, 2 * buffer.length));
+                }
+                System.arraycopy(a, from, buffer, count, length);
+                count += length;
+            }
+            return sorted(par, Arrays.copyOf(buffer, count));
+        }, base, expected);
+
+        StreamingSorter loaded = new StreamingSorter(par, 4);
+        for (int from = 0; from < size; from += batchSize) {
+            loaded.add(base, from, from + batchSize);
+        }
+        loaded.awaitIdle();
+        long toArrayNanos = averageNanos(a -> loaded.toArray(), base, expected);
+        long iterateNanos = averageNanos(a -> {
+            int[] result = new int[size];
+            PrimitiveIterator.OfInt values = loaded.iterator();
+            for (int i = 0; values.hasNext(); i++) {
+                result[i] = values.nextInt();
+            }
+            return result;
+        }, base, expected);
+        long resortNanos = averageNanos(a -> sorted(par, a), base, expected);
+
+        System.out.printf("add all + toArray %.1f ms, buffer all + ParallelMergeSort %.1f ms%n",
+                streamNanos / 1_000_000.0, bufferNanos / 1_000_000.0);
+        System.out.printf("read sorted output (%d runs): toArray %.1f ms, iterator %.1f ms; full re-sort %.1f ms%n",
+                loaded.runCount(), toArrayNanos / 1_000_000.0, iterateNanos / 1_000_000.0, resortNanos / 1_000_000.0);
+        System.out.println();
+    }
+
+    /**
+     * ParallelKWayMerge against concatenating the shards and sorting the result.
+     */
+    private static void benchmarkKWayMerge() {
+        int size = SIZES[SIZES.length - 1];
+        int[] base = generateRandomArray(size);
+        int[] expected = base.clone();
+        Arrays.sort(expected);
+        ParallelKWayMerge merger = new ParallelKWayMerge(10_000);
+        ParallelMergeSort par = new ParallelMergeSort(10_000);
+        System.out.println("=== K-way merge of sorted shards (total = " + size + ", Random) ===");
+        for (int shardCount : new int[]{16, 64, 256}) {
+            int[][] shards = new int[shardCount][];
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = Arrays.copyOfRange(base, (int) ((long) size * i / shardCount), (int) ((long) size * (i + 1) / shardCount));
+                Arrays.sort(shards[i]);
+            }
+            // the shards are the input; the action's argument is unused
+            long mergeNanos = averageNanos(a -> merger.merge(shards), base, expected);
+            long sortNanos = averageNanos(a -> sorted(par, concat(shards)), base, expected);
+            long parallelSortNanos = averageNanos(a -> {
+                int[] all = concat(shards);
+                Arrays.parallelSort(all);
+                return all;
+            }, base, expected);
+            System.out.printf("shards = %-4d : k-way merge %.1f ms (%.0f M/s), concat + ParallelMergeSort %.1f ms, "
+                            + "concat + Arrays.parallelSort %.1f ms%n", shardCount, mergeNanos / 1_000_000.0,
+                    size / (mergeNanos / 1_000.0), sortNanos / 1_000_000.0, parallelSortNanos / 1_000_000.0);
+        }
+        System.out.println();
+    }
+
+    private static int[] concat(int[][] shards) {
+        int[] all = new int[Arrays.stream(shards).mapToInt(shard -> shard.length).sum()];
+        int pos = 0;
+        for (int[] shard : shards) {
+            System.arraycopy(shard, 0, all, pos, shard.length);
+            pos += shard.length;
+        }
+        return all;
+    }
+
+    private static int[] sorted(SortAlgorithm algorithm, int[] array) {
+        algorithm.sort(array);
+        return array;
+    }
+
+    /**
+     * partialSort and nthElement against a full sort followed by Arrays.copyOf.
+     */
+    private static void benchmarkPartialSort() {
+        int size = SIZES[SIZES.length - 1];
+        int[] base = generateRandomArray(size);
+        int[] sorted = base.clone();
+        Arrays.sort(sorted);
+        ParallelMergeSort par = new ParallelMergeSort(10_000);
+        System.out.println("=== Top-k (size = " + size + ", Random) ===");
+        for (int k : new int[]{10, 1_000, 100_000}) {
+            int[] expected = Arrays.copyOf(sorted, k);
+            long fullNanos = averageNanos(a -> {
+                par.sort(a);
+                return Arrays.copyOf(a, k);
+            }, base, expected);
+            long partialNanos = averageNanos(a -> {
+                par.partialSort(a, k);
+                return Arrays.copyOf(a, k);
+            }, base, expected);
+            System.out.printf("k = %-7d : full sort + copyOf %.1f ms, partialSort + copyOf %.1f ms%n",
+                    k, fullNanos / 1_000_000.0, partialNanos / 1_000_000.0);
+        }
+        long nthNanos = averageNanos(a -> new int[]{par.nthElement(a, size / 2)}, base, new int[]{sorted[size / 2]});
+        System.out.printf("median    : nthElement %.1f ms%n", nthNanos / 1_000_000.0);
+        System.out.println();
+    }
+
+    /**
+     * Average time of an action over RUNS_PER_CASE fresh copies of the input; fails if
+     * the action's result differs from the expected one.
+     */
+    private static long averageNanos(Function<int[], int[]> action, int[] original, int[] expected) {
+        long totalNanos = 0L;
+        for (int r = 0; r < RUNS_PER_CASE; r++) {
+            int[] copy = Arrays.copyOf(original, original.length);
+            long start = System.nanoTime();
+            int[] result = action.apply(copy);
+            totalNanos += System.nanoTime() - start;
+
+            if (!Arrays.equals(expected, result)) {
+                throw new IllegalStateException("Wrong result");
+            }
+        }
+        return totalNanos / RUNS_PER_CASE;
+    }
+
+    /**
+     * Cost of instrumentation, and the metrics of one instrumented sort.
+     */
+    private static void benchmarkInstrumentation() {
+        int size = SIZES[SIZES.length - 1];
+        int[] base = generateRandomArray(size);
+        ParallelMergeSort plain = new ParallelMergeSort(10_000);
+        ParallelMergeSort instrumented = ParallelMergeSort.builder().threshold(10_000).instrumented(true).build();
+        System.out.println("=== Instrumentation (size = " + size + ", Random) ===");
+        long plainNanos = benchmarkAlgorithm(plain, base, RUNS_PER_CASE);
+        long instrumentedNanos = benchmarkAlgorithm(instrumented, base, RUNS_PER_CASE);
+        System.out.printf("off : %.1f ms%non  : %.1f ms%n", plainNanos / 1_000_000.0, instrumentedNanos / 1_000_000.0);
+        System.out.println("last sort: " + instrumented.getLastMetrics());
+        System.out.println();
+    }
+
+    /**
+     * Compares the merge kernels (scalar, branchless and, if loaded, vector) on random input, at the
+     * largest regular size and at {@link #KERNEL_LARGE_SIZE}, where the merge passes no longer fit in
+     * cache. The large point needs about 200 MB of heap (input, working copy and merge buffer).
+     */
+    private static void benchmarkMergeKernels() {
+        List<MergeKernel> kernels = new ArrayList<>(List.of(MergeKernels.SCALAR, MergeKernels.BRANCHLESS));
+        if (MergeKernels.vector() != null) {
+            kernels.add(MergeKernels.vector());
+        }
+        for (int size : new int[] {SIZES[SIZES.length - 1], KERNEL_LARGE_SIZE}) {
+            int[] base = generateRandomArray(size);
+            System.out.println("=== Merge kernels (size = " + size + ", Random) ===");
+            for (MergeKernel kernel : kernels) {
+                long seqNanos = benchmarkAlgorithm(
+                        new ParallelMergeSort(Integer.MAX_VALUE, false, null, 16, kernel), base, RUNS_PER_CASE);
+                long parNanos = benchmarkAlgorithm(
+                        new ParallelMergeSort(10_000, false, null, 16, kernel), base, RUNS_PER_CASE);
+                System.out.printf("%-10s : single task %.1f ms, ParallelMergeSort %.1f ms%n",
+                        kernel.name(), seqNanos / 1_000_000.0, parNanos / 1_000_000.0);
+            }
+            System.out.println();
+        }
+        if (MergeKernels.vector() == null) {
+            System.out.println("(vector kernel not loaded: build with -Pvector and run with --add-modules jdk.incubator.vector)");
+            System.out.println();
+        }
+    }
+
+    /**
+     * Sweeps the insertion-sort leaf block size (1 = pure merge sort) on random input.
+     */
+    private static void benchmarkInsertionSortSize() {
+        int size = SIZES[SIZES.length - 1];
+        int[] base = generateRandomArray(size);
+        System.out.println("=== Hybrid leaf block size (size = " + size + ", Random) ===");
+        for (int block : new int[]{1, 8, 16, 32, 64}) {
+            long seqNanos = benchmarkAlgorithm(new SequentialMergeSort(null, block), base, RUNS_PER_CASE);
+            long parNanos = benchmarkAlgorithm(new ParallelMergeSort(10_000, false, null, block), base, RUNS_PER_CASE);
+            System.out.printf("block = %-3d : SequentialMergeSort %.1f ms, ParallelMergeSort %.1f ms%n",
+                    block, seqNanos / 1_000_000.0, parNanos / 1_000_000.0);
+        }
+        System.out.println();
+    }
+
+    /**
+     * Record keyed by a comparator, as sorted in the object benchmark.
+     */
+    private static final class Row {
+        final int key;
+        final long payload;
+
+        Row(int key, long payload) {
+            this.key = key;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * Compares ParallelMergeSort.sort(T[], Comparator) with Arrays.parallelSort(T[], Comparator).
+     */
+    private static void benchmarkObjects() {
+        System.out.println("=== Object sort with comparator ===");
+        Comparator<Row> byKey = Comparator.comparingInt(row -> row.key);
+        ParallelMergeSort par = new ParallelMergeSort(10_000);
+
+        for (int size : SIZES) {
+            Row[] base = new Row[size];
+            for (int i = 0; i < size; i++) {
+                base[i] = new Row(RANDOM.nextInt(), i);
+            }
+
+            long parTotal = 0L;
+            long jdkTotal = 0L;
+            for (int r = 0; r < RUNS_PER_CASE; r++) {
+                Row[] copy = base.clone();
+                long start = System.nanoTime();
+                par.sort(copy, byKey);
+                parTotal += System.nanoTime() - start;
+
+                copy = base.clone();
+                start = System.nanoTime();
+                Arrays.parallelSort(copy, byKey);
+                jdkTotal += System.nanoTime() - start;
+            }
+
+            System.out.println("Size = " + size);
+            System.out.printf("%-20s : %.1f ms%n", "ParallelMergeSort<T>", parTotal / 1_000_000.0 / RUNS_PER_CASE);
+            System.out.printf("%-20s : %.1f ms%n", "Arrays.parallelSort", jdkTotal / 1_000_000.0 / RUNS_PER_CASE);
+        }
+        System.out.println();
+    }
+
+    /**
+     * Sorts the same batch many times with and without a scratch pool and prints
+     * bytes allocated per call (all threads), GC count/time and pool counters.
+     * The input is refreshed with System.arraycopy so the harness itself does not allocate.
+     */
+    private static void benchmarkScratchPool() {
+        System.out.println("=== Scratch buffer allocation (batch size = " + BATCH_SIZE
+                + ", calls = " + BATCH_CALLS + ") ===");
+
+        int[] batch = generateRandomArray(BATCH_SIZE);
+        long poolCap = 64L * 1024 * 1024;
+
+        ScratchBufferPool seqPool = new ScratchBufferPool(poolCap);
+        ScratchBufferPool parPool = new ScratchBufferPool(poolCap);
+        String[] names = {"SequentialMergeSort", "Sequential+pool", "ParallelMergeSort", "Parallel+pool"};
+        SortAlgorithm[] sorters = {
+                new SequentialMergeSort(),
+                new SequentialMergeSort(seqPool),
+                new ParallelMergeSort(10_000),
+                new ParallelMergeSort(10_000, false, parPool)
+        };
+        ScratchBufferPool[] pools = {null, seqPool, null, parPool};
+
+        int[] work = new int[batch.length];
+        for (int a = 0; a < sorters.length; a++) {
+            for (int r = 0; r < BATCH_WARMUP_CALLS; r++) {
+                System.arraycopy(batch, 0, work, 0, batch.length);
+                sorters[a].sort(work);
+            }
+            ScratchBufferPool.Stats poolBefore = pools[a] == null ? null : pools[a].stats();
+
+            long allocBefore = totalAllocatedBytes();
+            long gcCountBefore = totalGcCount();
+            long gcMillisBefore = totalGcMillis();
+            long start = System.nanoTime();
+            for (int r = 0; r < BATCH_CALLS; r++) {
+                System.arraycopy(batch, 0, work, 0, batch.length);
+                sorters[a].sort(work);
+            }
+            long end = System.nanoTime();
+            long allocated = totalAllocatedBytes() - allocBefore;
+
+            System.out.printf("%-20s : %.3f ms/call, %d bytes/call, GCs = %d (%d ms)",
+                    names[a], (end - start) / 1_000_000.0 / BATCH_CALLS, allocated / BATCH_CALLS,
+                    totalGcCount() - gcCountBefore, totalGcMillis() - gcMillisBefore);
+            if (pools[a] != null) {
+                ScratchBufferPool.Stats poolAfter = pools[a].stats();
+                System.out.printf(", pool allocations during run = %d",
+                        poolAfter.allocations - poolBefore.allocations);
+            }
+            System.out.println();
+        }
+        System.out.println();
+    }
+
+    /**
+     * Bytes allocated so far by all live threads, or -1 if the JVM cannot report it.
+     */
+    private static long totalAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        long total = 0;
+        for (long bytes : sunThreads.getThreadAllocatedBytes(sunThreads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    private static long totalGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
     }
 
     /**
@@ -85,26 +675,14 @@ public class SortBenchmark {
      * Generates a random int array of the given size.
      */
     public static int[] generateRandomArray(int size) {
-        int[] array = new int[size];
-        for (int i = 0; i < size; i++) {
-            array[i] = RANDOM.nextInt();
-        }
-        return array;
+        return DataGenerators.random().generate(size, RANDOM);
     }
 
     /**
      * Generates a reverse-sorted int array of the given size.
      */
     public static int[] generateReverseSortedArray(int size) {
-        int[] array = generateRandomArray(size);
-        Arrays.sort(array);
-        // Reverse to get descending order
-        for (int i = 0; i < array.length / 2; i++) {
-            int tmp = array[i];
-            array[i] = array[array.length - 1 - i];
-            array[array.length - 1 - i] = tmp;
-        }
-        return array;
+        return DataGenerators.reverse().generate(size, RANDOM);
     }
 
     /**
@@ -1,9 +1,41 @@
 package algorithms;
 
 import java.util.Arrays;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 /**
  * Lightweight correctness tests (no JUnit required).
@@ -13,12 +45,67 @@ import java.util.Random;
  * - All algorithms produce a sorted array.
  * - ParallelMergeSort produces EXACTLY the same output as SequentialMergeSort
  *   for the same input (important when duplicates exist).
+ * - The parallel merge mode of ParallelMergeSort matches SequentialMergeSort
+ *   with thresholds small enough to exercise the split merge.
+ * - The ping-pong buffer variants match SequentialMergeSort.
+ * - Sorters backed by a ScratchBufferPool match SequentialMergeSort and reuse
+ *   their buffers; the pool respects its retained-memory cap.
+ * - NaturalMergeSort matches SequentialMergeSort on random input and on
+ *   run-structured input (sorted, reversed, concatenated and descending runs); its
+ *   parallel block scan keeps sorted and reversed input a single run.
+ * - The generic T[] / List&lt;T&gt; sort is stable: it matches Arrays.sort with the
+ *   same comparator element-for-element (identity, not just key).
+ * - The long/double/float/short/char sorters match Arrays.sort exactly, including
+ *   NaN and -0.0 placement for double and float.
+ * - ParallelRadixSort matches SequentialMergeSort, both through the merge-sort
+ *   fallback and through the radix passes (negatives, extremes, shared digits).
+ * - ParallelArgSort returns a stable sorting permutation and applyPermutation
+ *   keeps companion columns aligned with the keys.
+ * - ExternalMergeSort sorts int and long files (several runs, multiple merge
+ *   passes, a short last chunk) identically to Arrays.sort.
+ * - ParallelBufferMergeSort sorts heap, direct and memory-mapped Int/LongBuffers
+ *   in place between position and limit, leaving the rest untouched.
+ * - Every DataGenerators pattern is deterministic per seed and has its advertised
+ *   shape; the main sorters match SequentialMergeSort on all of them.
+ * - ThresholdTuner calibrates once, persists its profile and reuses it; auto-tuned
+ *   ParallelMergeSort matches SequentialMergeSort, auto-tuned ParallelLongMergeSort
+ *   matches Arrays.sort.
+ * - Hybrid insertion-sort leaves (several block sizes) match the pure merge sort.
+ * - The branchless and (when jdk.incubator.vector is present) Vector API merge
+ *   kernels produce the same output as the scalar merge, alone and inside
+ *   ParallelMergeSort.
+ * - ParallelMergeSort runs in a caller-supplied or sorter-owned pool (named worker
+ *   threads); close() shuts down only the pool the sorter created.
+ * - sortAsync completes with the same output as the blocking sort, reports progress
+ *   up to the exact total, and stops early once its future is cancelled; cancelled
+ *   sorts drop their scratch buffer, so sorts sharing the pool stay correct.
+ * - An instrumented ParallelMergeSort counts every task per level, splits leaves from
+ *   (skipped) merges, and writes matching JFR events; uninstrumented sorters record nothing.
+ * - partialSort leaves the sorted k smallest values in front and nthElement partitions
+ *   around the n-th value; both keep the array a permutation of its input.
+ * - ParallelKWayMerge merges sorted shards (empty ones, duplicates, one to hundreds of
+ *   shards) into the sorted concatenation, and its co-ranking splits ties in shard order.
+ * - ParallelSampleSort matches SequentialMergeSort through its fallback and with many
+ *   buckets, including equality buckets for heavy duplicates.
+ * - StreamingSorter yields every value added so far in sorted order (iterator and
+ *   toArray) while batches are still arriving, merges its runs level by level, and
+ *   keeps iterator snapshots unaffected by later additions.
+ * - ColumnarSort orders rows by several ascending/descending int and long keys exactly
+ *   like a stable comparator sort, in all three key layouts (packed with the row index,
+ *   packed keys only, column by column), and reorders companion columns with the keys.
+ * - sortDistinct leaves the sorted distinct values in front and returns their count;
+ *   SortedSetOps union, intersection and difference match a set-based reference, and
+ *   the merge-path co-rank matches a stable merge.
+ * - SortedIntIndex answers contains, lower/upper bound and range counts like a binary
+ *   search over the sorted values, in sorted and Eytzinger layout, one by one and in
+ *   batches, and again after a save / memory-mapped load round trip, also when an index
+ *   is saved over the file it was loaded from.
  */
 public class SortCorrectnessTests {
 
     private static final Random RAND = new Random(12345);
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         SortAlgorithm seq = new SequentialMergeSort();
         int threshold = 10_000;
         SortAlgorithm par = new ParallelMergeSort(threshold);
@@ -49,9 +136,1018 @@ public class SortCorrectnessTests {
         System.out.println("PASS: reverse inputs (many sizes) => parallel == sequential");
         System.out.println();
 
+        // Small thresholds so the Fork/Join split and the parallel merge actually run
+        System.out.println("== 4) Parallel merge mode ==");
+        testParallelMergeMode(seq);
+        System.out.println("PASS: parallel merge (small thresholds) => parallel == sequential");
+        System.out.println();
+
+        System.out.println("== 5) Ping-pong buffer variants ==");
+        testVariantMatchesSequential(seq, new PingPongMergeSort(), "PingPongMergeSort");
+        System.out.println("PASS: PingPongMergeSort == sequential");
+        testVariantMatchesSequential(seq, new ParallelPingPongMergeSort(7), "ParallelPingPongMergeSort");
+        testVariantMatchesSequential(seq, new ParallelPingPongMergeSort(7, true), "ParallelPingPongMergeSort(parallel merge)");
+        System.out.println("PASS: ParallelPingPongMergeSort (both merge modes) == sequential");
+        System.out.println();
+
+        System.out.println("== 6) Scratch buffer pool ==");
+        testScratchPool(seq);
+        System.out.println("PASS: pooled sorters == sequential, buffers reused, cap respected");
+        System.out.println();
+
+        System.out.println("== 7) Adaptive natural merge sort ==");
+        SortAlgorithm natural = new NaturalMergeSort(64);
+        testVariantMatchesSequential(seq, natural, "NaturalMergeSort");
+        testNaturalRuns(seq, natural);
+        System.out.println("PASS: NaturalMergeSort == sequential (random and run-structured inputs)");
+        System.out.println();
+
+        System.out.println("== 8) Generic objects with comparator ==");
+        testGenericStableSort();
+        System.out.println("PASS: T[] and List<T> sorts are stable and match Arrays.sort");
+        System.out.println();
+
+        System.out.println("== 9) Primitive-specialized sorters ==");
+        testPrimitiveSorters();
+        System.out.println("PASS: long/double/float/short/char sorters == Arrays.sort (incl. NaN, -0.0)");
+        System.out.println();
+
+        System.out.println("== 10) Parallel LSD radix sort ==");
+        testVariantMatchesSequential(seq, new ParallelRadixSort(), "ParallelRadixSort(fallback)");
+        testRadixPasses(seq);
+        System.out.println("PASS: ParallelRadixSort == sequential (fallback and radix passes)");
+        System.out.println();
+
+        System.out.println("== 11) Argsort (key-index mode) ==");
+        testArgSort();
+        System.out.println("PASS: argsort is a stable sorting permutation; columns stay aligned");
+        System.out.println();
+
+        System.out.println("== 12) External merge sort ==");
+        testExternalMergeSort();
+        System.out.println("PASS: external sort of int/long files == Arrays.sort");
+        System.out.println();
+
+        System.out.println("== 13) IntBuffer / LongBuffer (off-heap) sort ==");
+        testBufferMergeSort();
+        System.out.println("PASS: heap, direct and mapped buffers sorted in place == Arrays.sort");
+        System.out.println();
+
+        System.out.println("== 14) Input distributions ==");
+        testDataGenerators(seq);
+        System.out.println("PASS: generators are seeded and shaped; sorters == sequential on every pattern");
+        System.out.println();
+
+        System.out.println("== 15) Auto-tuned threshold ==");
+        testThresholdTuner(seq);
+        System.out.println("PASS: tuner profile saved and reloaded; auto-tuned sort == sequential");
+        System.out.println();
+
+        System.out.println("== 16) Hybrid insertion-sort leaves ==");
+        for (int block : new int[]{2, 8, 32, 100}) {
+            testVariantMatchesSequential(seq, new SequentialMergeSort(null, block), "SequentialMergeSort(block=" + block + ")");
+            testVariantMatchesSequential(seq, new ParallelMergeSort(64, false, null, block), "ParallelMergeSort(block=" + block + ")");
+            testVariantMatchesSequential(seq, new ParallelMergeSort(64, true, null, block), "ParallelMergeSort-PM(block=" + block + ")");
+        }
+        System.out.println("PASS: hybrid leaves (block 2..100) == sequential");
+        System.out.println();
+
+        System.out.println("== 17) Merge kernels ==");
+        testMergeKernels(seq);
+        System.out.println();
+
+        System.out.println("== 18) Dedicated Fork/Join pools ==");
+        testDedicatedPools(seq);
+        System.out.println("PASS: caller and sorter-owned pools == sequential; close() releases only owned pools");
+        System.out.println();
+
+        System.out.println("== 19) Async sort, progress and cancellation ==");
+        testAsyncSort(seq);
+        System.out.println("PASS: sortAsync == sequential; progress reaches total; cancel stops the sort");
+        System.out.println();
+
+        System.out.println("== 20) Instrumentation and JFR events ==");
+        testInstrumentation(seq);
+        System.out.println("PASS: metrics count every task; JFR events match the snapshot");
+        System.out.println();
+
+        System.out.println("== 21) Partial sort and nth element ==");
+        testPartialSort();
+        System.out.println("PASS: partialSort prefix == sorted prefix; nthElement == sorted[n]; permutations kept");
+        System.out.println();
+
+        System.out.println("== 22) Parallel k-way merge ==");
+        testKWayMerge();
+        System.out.println("PASS: k-way merge == sorted concatenation; co-rank splits are stable");
+        System.out.println();
+
+        System.out.println("== 23) Parallel sample sort ==");
+        testVariantMatchesSequential(seq, new ParallelSampleSort(), "ParallelSampleSort(fallback)");
+        ForkJoinPool samplePool = new ForkJoinPool(8);
+        for (int sampleThreshold : new int[]{1, 7, 64}) {
+            testVariantMatchesSequential(seq, new ParallelSampleSort(sampleThreshold, samplePool),
+                    "ParallelSampleSort(threshold=" + sampleThreshold + ")");
+        }
+        int[] fewValues = new int[50_000];
+        for (int i = 0; i < fewValues.length; i++) {
+            fewValues[i] = RAND.nextInt(10) == 0 ? RAND.nextInt() : RAND.nextInt(3);
+        }
+        assertSameAsSequential(seq, new ParallelSampleSort(16, samplePool), fewValues, "ParallelSampleSort(few values)");
+        samplePool.shutdown();
+        System.out.println("PASS: ParallelSampleSort == sequential (fallback, 32 buckets, heavy duplicates)");
+        System.out.println();
+
+        System.out.println("== 24) Streaming incremental sorter ==");
+        testStreamingSorter();
+        System.out.println("PASS: streamed output == sorted input so far; runs merge per level; snapshots are stable");
+        System.out.println();
+
+        System.out.println("== 25) Multi-column sort ==");
+        testColumnarSort();
+        System.out.println("PASS: composite-key order == stable comparator sort in every key layout; columns stay aligned");
+        System.out.println();
+
+        System.out.println("== 26) Sort-distinct and sorted-set operations ==");
+        testDistinctAndSetOps();
+        System.out.println("PASS: sortDistinct == distinct sorted values; union/intersection/difference == set reference");
+        System.out.println();
+
+        System.out.println("== 27) Persistent sorted index ==");
+        testSortedIntIndex();
+        System.out.println("PASS: index queries == sorted-array reference in both layouts; save/load round trip");
+        System.out.println();
+
         System.out.println("ALL CORRECTNESS TESTS PASSED");
     }
 
+    private static void testMergeKernels(SortAlgorithm seq) {
+        List<MergeKernel> kernels = new ArrayList<>();
+        kernels.add(MergeKernels.BRANCHLESS);
+        MergeKernel vector = MergeKernels.vector();
+        if (vector != null) {
+            kernels.add(vector);
+        } else {
+            System.out.println("(vector kernel unavailable: run with --add-modules jdk.incubator.vector to test it)");
+        }
+
+        for (MergeKernel kernel : kernels) {
+            // Direct kernel calls: run lengths around the vector width, narrow value ranges for ties,
+            // and a non-zero destination offset.
+            for (int trial = 0; trial < 2_000; trial++) {
+                int n1 = RAND.nextInt(trial < 1_000 ? 40 : 400);
+                int n2 = RAND.nextInt(trial < 1_000 ? 40 : 400);
+                int range = RAND.nextBoolean() ? 8 : Integer.MAX_VALUE;
+                int[] src = new int[3 + n1 + n2];
+                for (int i = 0; i < src.length; i++) {
+                    src[i] = RAND.nextInt(range) - (range == 8 ? 4 : range / 2);
+                }
+                Arrays.sort(src, 3, 3 + n1);
+                Arrays.sort(src, 3 + n1, src.length);
+
+                int[] expected = new int[n1 + n2 + 5];
+                int[] actual = new int[n1 + n2 + 5];
+                ParallelMergeSort.MergeTask.mergeRuns(src, 3, 2 + n1, 3 + n1, 2 + n1 + n2, expected, 5);
+                kernel.merge(src, 3, 2 + n1, 3 + n1, 2 + n1 + n2, actual, 5);
+                assertTrue(Arrays.equals(expected, actual),
+                        kernel.name() + " kernel != scalar merge (n1=" + n1 + ", n2=" + n2 + ")");
+            }
+
+            testVariantMatchesSequential(seq, new ParallelMergeSort(64, false, null, 1, kernel),
+                    "ParallelMergeSort(kernel=" + kernel.name() + ")");
+            testVariantMatchesSequential(seq, new ParallelMergeSort(64, true, null, 16, kernel),
+                    "ParallelMergeSort-PM(kernel=" + kernel.name() + ")");
+            System.out.println("PASS: " + kernel.name() + " kernel == scalar merge; sorter == sequential");
+        }
+    }
+
+    private static void testDedicatedPools(SortAlgorithm seq) {
+        ForkJoinPool callerPool = new ForkJoinPool(2);
+        try (ParallelMergeSort shared = new ParallelMergeSort(64, callerPool)) {
+            assertTrue(shared.getPool() == callerPool, "Sorter should use the caller's pool");
+            testVariantMatchesSequential(seq, shared, "ParallelMergeSort(caller pool)");
+        }
+        assertTrue(!callerPool.isShutdown(), "close() shut down a caller-owned pool");
+        callerPool.shutdown();
+
+        try (ParallelMergeSort common = new ParallelMergeSort()) {
+            assertTrue(common.getPool() == ForkJoinPool.commonPool(), "Default sorter should use the common pool");
+        }
+
+        ParallelMergeSort owned = ParallelMergeSort.builder()
+                .threshold(64)
+                .parallelMerge(true)
+                .insertionSortSize(8)
+                .parallelism(2)
+                .threadNamePrefix("sort-test")
+                .asyncMode(true)
+                .build();
+        ForkJoinPool ownedPool = owned.getPool();
+        try (owned) {
+            assertTrue(ownedPool != ForkJoinPool.commonPool() && ownedPool.getParallelism() == 2,
+                    "Builder should create a pool with parallelism 2");
+            assertTrue(ownedPool.getAsyncMode(), "Builder should create an async-mode pool");
+            testVariantMatchesSequential(seq, owned, "ParallelMergeSort(owned pool)");
+
+            // the comparator runs inside the sort tasks, so it sees the worker thread names
+            Integer[] boxed = new Integer[5_000];
+            for (int i = 0; i < boxed.length; i++) {
+                boxed[i] = RAND.nextInt();
+            }
+            List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+            owned.sort(boxed, (a, b) -> {
+                threadNames.add(Thread.currentThread().getName());
+                return Integer.compare(a, b);
+            });
+            assertTrue(threadNames.stream().allMatch(name -> name.startsWith("sort-test-")),
+                    "Sort tasks ran outside the named worker threads");
+        }
+        assertTrue(ownedPool.isTerminated(), "close() did not terminate the sorter-owned pool");
+
+        boolean rejected = false;
+        try {
+            owned.sort(new int[]{3, 1, 2});
+        } catch (RejectedExecutionException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "Sorting after close() should be rejected");
+
+        boolean conflict = false;
+        try {
+            ParallelMergeSort.builder().pool(ForkJoinPool.commonPool()).parallelism(2).build();
+        } catch (IllegalStateException e) {
+            conflict = true;
+        }
+        assertTrue(conflict, "Builder accepted both a pool and a parallelism");
+
+        // every entry point also works when called from a task of the sorter's own pool
+        try (ParallelMergeSort nested = ParallelMergeSort.builder().threshold(64).parallelism(2).build()) {
+            int[] input = randomArray(20_000);
+            int[] expected = input.clone();
+            Arrays.sort(expected);
+            int distinct = (int) Arrays.stream(expected).distinct().count();
+            boolean ok = nested.getPool().submit(() -> {
+                int[] sorted = input.clone();
+                nested.sort(sorted);
+                int[] partial = input.clone();
+                nested.partialSort(partial, 100);
+                int[] unique = input.clone();
+                int count = nested.sortDistinct(unique);
+                Integer[] boxed = Arrays.stream(input).boxed().toArray(Integer[]::new);
+                nested.sort(boxed, null);
+                int nth = nested.nthElement(input.clone(), 5_000);
+                return Arrays.equals(expected, sorted)
+                        && Arrays.equals(Arrays.copyOf(expected, 100), Arrays.copyOf(partial, 100))
+                        && count == distinct
+                        && Arrays.equals(expected, Arrays.stream(boxed).mapToInt(Integer::intValue).toArray())
+                        && nth == expected[5_000];
+            }).join();
+            assertTrue(ok, "ParallelMergeSort entry points called from inside its pool are wrong");
+        }
+    }
+
+    private static void testAsyncSort(SortAlgorithm seq) throws IOException {
+        // mergeWork must match a literal count over the recursion
+        for (int block : new int[]{1, 2, 7, 32}) {
+            for (int n = 0; n <= 2_000; n++) {
+                assertTrue(ParallelMergeSort.mergeWork(n, block) == countMergeWork(n, block),
+                        "mergeWork(" + n + ", " + block + ") is wrong");
+            }
+        }
+
+        // the auto-tuned sorter keeps its profile in a temp file, not in the user's home
+        Path dir = Files.createTempDirectory("async-sort-test");
+        Path profile = dir.resolve("profile.properties");
+        try {
+            SortAlgorithm[] sorters = {new ParallelMergeSort(64), new ParallelMergeSort(64, true, null, 8),
+                    new ParallelMergeSort(10_000), ParallelMergeSort.autoTuned(new ThresholdTuner(profile)),
+                    new ParallelRadixSort(64)};
+            for (SortAlgorithm sorter : sorters) {
+                for (int size : new int[]{0, 1, 2, 31, 1000, 20_000}) {
+                    String label = sorter.getClass().getSimpleName() + " (size=" + size + ")";
+                    int[] input = randomArray(size);
+                    int[] expected = input.clone();
+                    runQuietly(() -> seq.sort(expected));
+                    int[] actual = input.clone();
+                    int[] result = sorter.sortAsync(actual).join();
+                    assertTrue(result == actual, "sortAsync should complete with the input array " + label);
+                    assertTrue(Arrays.equals(expected, actual), "sortAsync != sequential " + label);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(profile);
+            Files.deleteIfExists(dir);
+        }
+
+        // progress: the maximum reported value equals the total, which equals mergeWork(n)
+        ParallelMergeSort par = new ParallelMergeSort(256, false, null, 16);
+        int[] input = randomArray(50_000);
+        AtomicLong maxMerged = new AtomicLong();
+        AtomicLong reportedTotal = new AtomicLong();
+        par.sortAsync(input, (merged, total) -> {
+            maxMerged.accumulateAndGet(merged, Math::max);
+            reportedTotal.set(total);
+        }).join();
+        assertTrue(SortBenchmark.isSorted(input), "sortAsync with progress did not sort");
+        assertTrue(reportedTotal.get() == ParallelMergeSort.mergeWork(50_000, 16), "Progress total != mergeWork");
+        assertTrue(maxMerged.get() == reportedTotal.get(), "Progress did not reach the total");
+
+        // cancellation: block the first progress callback until the future is cancelled,
+        // then let the pool drain and check that the sort stopped early
+        CountDownLatch firstProgress = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        AtomicLong lastMerged = new AtomicLong();
+        ParallelMergeSort cancellable = ParallelMergeSort.builder().threshold(1_000).parallelism(2).build();
+        CompletableFuture<int[]> future;
+        try (cancellable) {
+            future = cancellable.sortAsync(randomArray(1_000_000), (merged, total) -> {
+                lastMerged.accumulateAndGet(merged, Math::max);
+                firstProgress.countDown();
+                try {
+                    cancelled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            try {
+                firstProgress.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError("Interrupted while waiting for progress", e);
+            }
+            assertTrue(future.cancel(true), "Running async sort could not be cancelled");
+            cancelled.countDown();
+        }
+        assertTrue(future.isCancelled(), "Future should report cancellation");
+        assertTrue(lastMerged.get() < ParallelMergeSort.mergeWork(1_000_000, 1),
+                "Cancelled sort ran to completion");
+
+        // cancelled sorts must not hand their temp buffer back to a scratch pool that other
+        // sorts lease from while stolen tasks of the cancelled sort may still write to it
+        ScratchBufferPool shared = new ScratchBufferPool(64L << 20);
+        ParallelMergeSort pooled = ParallelMergeSort.builder().threshold(500).scratchPool(shared).parallelism(4).build();
+        Random random = new Random(19);
+        try (pooled) {
+            for (int round = 0; round < 20; round++) {
+                List<CompletableFuture<int[]>> futures = new ArrayList<>();
+                List<int[]> expectedResults = new ArrayList<>();
+                for (int s = 0; s < 6; s++) {
+                    int[] values = randomArray(100_000 + random.nextInt(50_000));
+                    int[] expected = values.clone();
+                    Arrays.sort(expected);
+                    futures.add(pooled.sortAsync(values));
+                    expectedResults.add(expected);
+                }
+                for (int s = 0; s < futures.size(); s += 2) {
+                    futures.get(s).cancel(true);
+                }
+                for (int s = 1; s < futures.size(); s += 2) {
+                    assertTrue(Arrays.equals(expectedResults.get(s), futures.get(s).join()),
+                            "Sort sharing a scratch pool with cancelled sorts is wrong (round " + round + ")");
+                }
+            }
+        }
+
+        // a sort cancelled mid-flight leaves nothing in its scratch pool once its tasks are done
+        ScratchBufferPool dropped = new ScratchBufferPool(64L << 20);
+        ParallelMergeSort blocked = ParallelMergeSort.builder().threshold(1_000).scratchPool(dropped).parallelism(2).build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        try (blocked) {
+            CompletableFuture<int[]> victim = blocked.sortAsync(randomArray(200_000), (merged, total) -> {
+                started.countDown();
+                try {
+                    resume.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError("Interrupted while waiting for progress", e);
+            }
+            victim.cancel(true);
+            resume.countDown();
+        }
+        assertTrue(dropped.stats().retainedBytes == 0, "Cancelled sort returned its temp buffer to the pool");
+    }
+
+    private static void testInstrumentation(SortAlgorithm seq) throws IOException {
+        ParallelMergeSort plain = new ParallelMergeSort(1_000);
+        plain.sort(randomArray(10_000));
+        assertTrue(plain.getLastMetrics() == null, "Uninstrumented sorter recorded metrics");
+
+        ParallelMergeSort instrumented = ParallelMergeSort.builder().threshold(1_000).instrumented(true).build();
+        testVariantMatchesSequential(seq, instrumented, "ParallelMergeSort(instrumented)");
+
+        int size = 100_000;
+        instrumented.sort(randomArray(size));
+        SortMetrics.Snapshot metrics = instrumented.getLastMetrics();
+        assertTrue(metrics != null && metrics.elements == size && metrics.threshold == 1_000, "Missing metrics snapshot");
+        assertTrue(metrics.tasks == countTasks(size, 1_000), "Task count " + metrics.tasks + " != " + countTasks(size, 1_000));
+        assertTrue(metrics.leaves + metrics.merges + metrics.skippedMerges == metrics.tasks, "Leaves + merges != tasks");
+        assertTrue(Arrays.stream(metrics.levelTasks).sum() == metrics.tasks && metrics.levelTasks[0] == 1,
+                "Per-level task counts do not add up");
+        assertTrue(Arrays.stream(metrics.leafHistogram).sum() == metrics.leaves
+                && Arrays.stream(metrics.mergeHistogram).sum() == metrics.merges, "Histograms do not add up");
+        assertTrue(metrics.threadsUsed >= 1 && metrics.utilization() >= 0 && metrics.utilization() <= 1,
+                "Bad thread/utilization metrics: " + metrics);
+
+        int[] sorted = new int[size];
+        Arrays.setAll(sorted, i -> i);
+        instrumented.sort(sorted);
+        assertTrue(instrumented.getLastMetrics().merges == 0, "Sorted input should skip every merge");
+
+        // JFR: one sort event and one task event per recorded task
+        Path file = Files.createTempFile("sort-metrics", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("algorithms.MergeSort");
+            recording.enable("algorithms.MergeSortTask");
+            recording.start();
+            instrumented.sort(randomArray(size));
+            recording.stop();
+            recording.dump(file);
+
+            long sortEvents = 0;
+            long taskEvents = 0;
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                String name = event.getEventType().getName();
+                if (name.equals("algorithms.MergeSort")) {
+                    sortEvents++;
+                    assertTrue(event.getLong("elements") == size, "JFR sort event has the wrong size");
+                } else if (name.equals("algorithms.MergeSortTask")) {
+                    taskEvents++;
+                }
+            }
+            assertTrue(sortEvents == 1, "Expected one JFR sort event, got " + sortEvents);
+            assertTrue(taskEvents == instrumented.getLastMetrics().tasks, "JFR task events != recorded tasks");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void testPartialSort() {
+        ParallelMergeSort[] sorters = {new ParallelMergeSort(7), new ParallelMergeSort(64, false, null, 8),
+                new ParallelMergeSort(10_000)};
+        for (ParallelMergeSort sorter : sorters) {
+            for (int size : new int[]{1, 2, 3, 10, 31, 128, 1000, 20_000}) {
+                for (int trial = 0; trial < 3; trial++) {
+                    int range = trial == 0 ? 5 : Integer.MAX_VALUE; // heavy duplicates on the first trial
+                    int[] input = new int[size];
+                    for (int i = 0; i < size; i++) {
+                        input[i] = trial == 2 ? size - i : RAND.nextInt(range);
+                    }
+                    int[] sorted = input.clone();
+                    Arrays.sort(sorted);
+
+                    for (int k : new int[]{0, 1, 2, 5, size / 3, size - 1, size, size + 5}) {
+                        String label = "(size=" + size + ", k=" + k + ", trial=" + trial + ")";
+                        int[] actual = input.clone();
+                        sorter.partialSort(actual, k);
+                        int prefix = Math.min(k, size);
+                        assertTrue(Arrays.equals(sorted, 0, prefix, actual, 0, prefix), "partialSort prefix wrong " + label);
+                        int[] all = actual.clone();
+                        Arrays.sort(all);
+                        assertTrue(Arrays.equals(sorted, all), "partialSort lost values " + label);
+                    }
+
+                    for (int n : new int[]{0, size / 2, size - 1, RAND.nextInt(size)}) {
+                        String label = "(size=" + size + ", n=" + n + ", trial=" + trial + ")";
+                        int[] actual = input.clone();
+                        int value = sorter.nthElement(actual, n);
+                        assertTrue(value == sorted[n] && actual[n] == sorted[n], "nthElement wrong " + label);
+                        for (int i = 0; i < size; i++) {
+                            assertTrue(i < n ? actual[i] <= value : i == n || actual[i] >= value,
+                                    "nthElement not partitioned at " + i + " " + label);
+                        }
+                        int[] all = actual.clone();
+                        Arrays.sort(all);
+                        assertTrue(Arrays.equals(sorted, all), "nthElement lost values " + label);
+                    }
+                }
+            }
+        }
+
+        boolean rejected = false;
+        try {
+            new ParallelMergeSort().nthElement(new int[3], 3);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "nthElement accepted an index past the end");
+    }
+
+    private static void testKWayMerge() {
+        ParallelKWayMerge[] mergers = {new ParallelKWayMerge(7), new ParallelKWayMerge(500), new ParallelKWayMerge(10_000)};
+        for (int shardCount : new int[]{0, 1, 2, 3, 5, 16, 200}) {
+            for (int trial = 0; trial < 4; trial++) {
+                int range = trial % 2 == 0 ? 10 : Integer.MAX_VALUE;
+                int[][] shards = new int[shardCount][];
+                for (int i = 0; i < shardCount; i++) {
+                    int length = RAND.nextInt(4) == 0 ? 0 : RAND.nextInt(trial < 2 ? 50 : 2_000);
+                    shards[i] = new int[length];
+                    for (int j = 0; j < length; j++) {
+                        shards[i][j] = range == 10 ? RAND.nextInt(range) : RAND.nextInt();
+                    }
+                    Arrays.sort(shards[i]);
+                }
+                int[] expected = Arrays.stream(shards).flatMapToInt(Arrays::stream).sorted().toArray();
+                String label = "(shards=" + shardCount + ", trial=" + trial + ")";
+
+                for (ParallelKWayMerge merger : mergers) {
+                    assertTrue(Arrays.equals(expected, merger.merge(shards)), "k-way merge != sorted concatenation " + label);
+                }
+
+                // reference stable order: (value, shard, index within shard)
+                List<int[]> tagged = new ArrayList<>();
+                for (int i = 0; i < shardCount; i++) {
+                    for (int j = 0; j < shards[i].length; j++) {
+                        tagged.add(new int[]{shards[i][j], i});
+                    }
+                }
+                tagged.sort(Comparator.<int[]>comparingInt(t -> t[0]).thenComparingInt(t -> t[1]));
+                int[] taken = new int[shardCount];
+                for (int rank = 0; rank <= expected.length; rank += 1 + expected.length / 37) {
+                    Arrays.fill(taken, 0);
+                    for (int r = 0; r < rank; r++) {
+                        taken[tagged.get(r)[1]]++;
+                    }
+                    assertTrue(Arrays.equals(taken, ParallelKWayMerge.coRank(shards, rank)),
+                            "coRank(" + rank + ") is not the stable split " + label);
+                }
+            }
+        }
+
+        boolean rejected = false;
+        try {
+            new ParallelKWayMerge().merge(new int[]{1}, null);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "k-way merge accepted a null shard");
+    }
+
+    private static void testStreamingSorter() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelMergeSort batchSorter = new ParallelMergeSort(7, pool);
+        for (int fanIn : new int[]{2, 3, 4}) {
+            try (StreamingSorter streaming = new StreamingSorter(batchSorter, fanIn)) {
+                List<Integer> added = new ArrayList<>();
+                int[] batch = new int[3_000];
+                int batches = 0;
+                for (int b = 0; b < 40; b++) {
+                    int length = b % 7 == 0 ? RAND.nextInt(2) : RAND.nextInt(batch.length);
+                    for (int i = 0; i < length; i++) {
+                        batch[i] = RAND.nextInt(1000) - 500;
+                        added.add(batch[i]);
+                    }
+                    streaming.add(batch, 0, length);
+                    batches += length == 0 ? 0 : 1;
+                    Arrays.fill(batch, Integer.MIN_VALUE); // the sorter must have copied the batch
+
+                    if (b % 9 == 0 || b == 39) {
+                        int[] expected = added.stream().mapToInt(Integer::intValue).sorted().toArray();
+                        String label = "(fanIn=" + fanIn + ", batch=" + b + ")";
+                        assertTrue(Arrays.equals(expected, drain(streaming.iterator())), "streamed output != sorted input " + label);
+                        assertTrue(Arrays.equals(expected, streaming.toArray()), "toArray != sorted input " + label);
+                        assertTrue(streaming.size() == expected.length, "size != values added " + label);
+                    }
+                }
+
+                // once idle, level i holds digit i of the batch count in base fanIn
+                streaming.awaitIdle();
+                int expectedRuns = 0;
+                for (int rest = batches; rest > 0; rest /= fanIn) {
+                    expectedRuns += rest % fanIn;
+                }
+                assertTrue(streaming.runCount() == expectedRuns,
+                        "fanIn=" + fanIn + ": " + streaming.runCount() + " runs, expected " + expectedRuns);
+
+                // an iterator keeps its snapshot while more batches arrive and merge
+                int[] before = streaming.toArray();
+                PrimitiveIterator.OfInt snapshot = streaming.iterator();
+                for (int b = 0; b < 3 * fanIn; b++) {
+                    streaming.add(randomArray(500));
+                }
+                assertTrue(Arrays.equals(before, drain(snapshot)), "iterator saw values added after it was created");
+            }
+        }
+
+        // several producers at once; the data stays readable after close
+        StreamingSorter streaming = new StreamingSorter(batchSorter, 4);
+        int[] expected;
+        try (streaming) {
+            int[][] produced = new int[4][];
+            Thread[] producers = new Thread[produced.length];
+            for (int t = 0; t < producers.length; t++) {
+                produced[t] = randomArray(20_000);
+                int[] values = produced[t];
+                producers[t] = new Thread(() -> {
+                    for (int from = 0; from < values.length; from += 1_000) {
+                        streaming.add(values, from, from + 1_000);
+                    }
+                });
+                producers[t].start();
+            }
+            for (Thread producer : producers) {
+                try {
+                    producer.join();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            expected = Arrays.stream(produced).flatMapToInt(Arrays::stream).sorted().toArray();
+            assertTrue(Arrays.equals(expected, streaming.toArray()), "concurrent adds lost or reordered values");
+        }
+        assertTrue(Arrays.equals(expected, drain(streaming.iterator())), "closed sorter lost its data");
+        boolean rejected = false;
+        try {
+            streaming.add(new int[]{1});
+        } catch (IllegalStateException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "closed StreamingSorter accepted a batch");
+
+        PrimitiveIterator.OfInt empty = new StreamingSorter(batchSorter, 2).iterator();
+        assertTrue(!empty.hasNext(), "empty StreamingSorter has values");
+        boolean threw = false;
+        try {
+            empty.nextInt();
+        } catch (NoSuchElementException e) {
+            threw = true;
+        }
+        assertTrue(threw, "exhausted iterator did not throw NoSuchElementException");
+
+        rejected = false;
+        try {
+            new StreamingSorter(batchSorter, 1);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "StreamingSorter accepted fanIn 1");
+        pool.shutdown();
+    }
+
+    private static void testColumnarSort() {
+        for (int size : new int[]{0, 1, 2, 3, 31, 1000, 20_000}) {
+            int[] region = new int[size];
+            long[] ts = new long[size];
+            long[] wide = new long[size];
+            int[] id = new int[size];
+            for (int i = 0; i < size; i++) {
+                region[i] = RAND.nextInt(5) - 2;
+                ts[i] = 1_700_000_000_000L + RAND.nextInt(50);
+                wide[i] = RAND.nextInt(4) == 0 ? Long.MIN_VALUE + RAND.nextInt(3) : RAND.nextLong();
+                id[i] = RAND.nextInt(3) == 0 ? Integer.MAX_VALUE - RAND.nextInt(3) : RAND.nextInt(1000);
+            }
+
+            // region asc, ts desc: packed with the row index
+            checkColumnarOrder(size, ColumnarSort.KeyLayout.PACKED_WITH_INDEX,
+                    Comparator.<Integer>comparingInt(r -> region[r]).thenComparing(r -> ts[r], Comparator.reverseOrder()),
+                    ColumnarSort.asc(region), ColumnarSort.desc(ts));
+            // wide (64 bits) alone: packed keys only
+            checkColumnarOrder(size, ColumnarSort.KeyLayout.PACKED,
+                    Comparator.comparingLong(r -> -1 - wide[r]), ColumnarSort.desc(wide));
+            // wide asc, region asc, id desc: column by column
+            checkColumnarOrder(size, ColumnarSort.KeyLayout.COLUMNS,
+                    Comparator.<Integer>comparingLong(r -> wide[r]).thenComparingInt(r -> region[r])
+                            .thenComparing(r -> id[r], Comparator.reverseOrder()),
+                    ColumnarSort.asc(wide), ColumnarSort.asc(region), ColumnarSort.desc(id));
+        }
+
+        // in-place sort of key and companion columns
+        int size = 5_000;
+        int[] region = new int[size];
+        long[] ts = new long[size];
+        double[] amount = new double[size];
+        String[] names = new String[size];
+        for (int i = 0; i < size; i++) {
+            region[i] = RAND.nextInt(7);
+            ts[i] = RAND.nextInt(100);
+            amount[i] = i + 0.5;
+            names[i] = "row" + i;
+        }
+        int[] regionBefore = region.clone();
+        long[] tsBefore = ts.clone();
+        for (boolean packKeys : new boolean[]{true, false}) {
+            int[] r = regionBefore.clone();
+            long[] t = tsBefore.clone();
+            double[] a = amount.clone();
+            String[] n = names.clone();
+            new ColumnarSort(64, packKeys).sort(new ColumnarSort.SortKey[]{ColumnarSort.desc(r), ColumnarSort.asc(t)}, a, n, r);
+            for (int i = 0; i < size; i++) {
+                int row = (int) a[i];
+                assertTrue(r[i] == regionBefore[row] && t[i] == tsBefore[row] && n[i].equals("row" + row),
+                        "ColumnarSort.sort misaligned columns (packKeys=" + packKeys + ")");
+                if (i > 0) {
+                    int prev = (int) a[i - 1];
+                    assertTrue(r[i - 1] > r[i] || (r[i - 1] == r[i] && (t[i - 1] < t[i] || (t[i - 1] == t[i] && prev < row))),
+                            "ColumnarSort.sort order is wrong (packKeys=" + packKeys + ")");
+                }
+            }
+        }
+
+        boolean rejected = false;
+        try {
+            new ColumnarSort().argsort(ColumnarSort.asc(new int[3]), ColumnarSort.asc(new long[4]));
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "ColumnarSort accepted key columns of different lengths");
+        rejected = false;
+        try {
+            new ColumnarSort().sort(new ColumnarSort.SortKey[]{ColumnarSort.asc(new int[3])}, (Object) new float[3]);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "ColumnarSort accepted an unsupported column type");
+    }
+
+    /**
+     * Checks argsort (packed and unpacked) against a stable sort of boxed row indices.
+     */
+    private static void checkColumnarOrder(int size, ColumnarSort.KeyLayout layout, Comparator<Integer> order,
+                                           ColumnarSort.SortKey... keys) {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            rows.add(i);
+        }
+        rows.sort(order);
+        int[] expected = rows.stream().mapToInt(Integer::intValue).toArray();
+        String label = "(layout=" + layout + ", size=" + size + ")";
+
+        for (int threshold : new int[]{1, 7, 10_000}) {
+            ColumnarSort packed = new ColumnarSort(threshold);
+            if (size >= 1000) { // smaller inputs may not reach the column ranges the layout needs
+                assertTrue(packed.layout(keys) == layout, "ColumnarSort chose " + packed.layout(keys) + " " + label);
+            }
+            assertTrue(Arrays.equals(expected, packed.argsort(keys)), "ColumnarSort.argsort != stable sort " + label);
+            assertTrue(Arrays.equals(expected, new ColumnarSort(threshold, false).argsort(keys)),
+                    "ColumnarSort.argsort (no packing) != stable sort " + label);
+        }
+    }
+
+    private static void testDistinctAndSetOps() {
+        ForkJoinPool pool = new ForkJoinPool(8);
+        int[] sizes = {0, 1, 2, 3, 10, 1000, 50_000};
+        for (int threshold : new int[]{1, 7, 64, 10_000}) {
+            ParallelMergeSort sorter = new ParallelMergeSort(threshold, pool);
+            for (int size : sizes) {
+                for (int range : new int[]{3, 1000, Integer.MAX_VALUE}) {
+                    int[] array = new int[size];
+                    for (int i = 0; i < size; i++) {
+                        array[i] = range == Integer.MAX_VALUE ? RAND.nextInt() : RAND.nextInt(range);
+                    }
+                    int[] expected = Arrays.stream(array).distinct().sorted().toArray();
+                    int count = sorter.sortDistinct(array);
+                    String label = "(threshold=" + threshold + ", size=" + size + ", range=" + range + ")";
+                    assertTrue(count == expected.length, "sortDistinct count " + count + " != " + expected.length + " " + label);
+                    assertTrue(Arrays.equals(expected, Arrays.copyOf(array, count)), "sortDistinct prefix wrong " + label);
+                }
+            }
+            assertTrue(sorter.sortDistinct(null) == 0, "sortDistinct(null) should count as empty");
+        }
+
+        SortedSetOps[] ops = {new SortedSetOps(1, pool), new SortedSetOps(50, pool), new SortedSetOps()};
+        for (int trial = 0; trial < 30; trial++) {
+            int range = trial % 3 == 0 ? 20 : trial % 3 == 1 ? 5_000 : Integer.MAX_VALUE;
+            int[] a = sortedWithDuplicates(RAND.nextInt(4) == 0 ? RAND.nextInt(3) : RAND.nextInt(20_000), range);
+            int[] b = sortedWithDuplicates(RAND.nextInt(4) == 0 ? RAND.nextInt(3) : RAND.nextInt(20_000), range);
+            Set<Integer> setA = new TreeSet<>();
+            Arrays.stream(a).forEach(setA::add);
+            Set<Integer> setB = new TreeSet<>();
+            Arrays.stream(b).forEach(setB::add);
+            Set<Integer> union = new TreeSet<>(setA);
+            union.addAll(setB);
+            Set<Integer> intersection = new TreeSet<>(setA);
+            intersection.retainAll(setB);
+            Set<Integer> difference = new TreeSet<>(setA);
+            difference.removeAll(setB);
+            String label = "(trial=" + trial + ", |a|=" + a.length + ", |b|=" + b.length + ")";
+
+            for (SortedSetOps op : ops) {
+                assertTrue(Arrays.equals(toIntArray(union), op.union(a, b)), "union wrong " + label);
+                assertTrue(Arrays.equals(toIntArray(intersection), op.intersection(a, b)), "intersection wrong " + label);
+                assertTrue(Arrays.equals(toIntArray(difference), op.difference(a, b)), "difference wrong " + label);
+            }
+
+            // co-rank: how many of a are among the first r elements of the stable merge
+            for (int rank = 0; rank <= a.length + b.length; rank += 1 + (a.length + b.length) / 23) {
+                int fromA = 0;
+                int i = 0;
+                int j = 0;
+                for (int r = 0; r < rank; r++) {
+                    if (j == b.length || (i < a.length && a[i] <= b[j])) {
+                        i++;
+                        fromA++;
+                    } else {
+                        j++;
+                    }
+                }
+                assertTrue(SortedSetOps.coRank(a, 0, a.length, b, 0, b.length, rank) == fromA, "coRank wrong " + label);
+            }
+        }
+
+        boolean rejected = false;
+        try {
+            new SortedSetOps().union(new int[]{1}, null);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "SortedSetOps accepted a null input");
+        // result bounds are computed in long, so the size check sees huge unions
+        assertTrue(SortedSetOps.Op.UNION.bound(Integer.MAX_VALUE, Integer.MAX_VALUE) == 2L * Integer.MAX_VALUE
+                && SortedSetOps.Op.DISTINCT_UNION.bound(Integer.MAX_VALUE, 1) == Integer.MAX_VALUE + 1L,
+                "union bound overflows");
+        pool.shutdown();
+    }
+
+    private static int[] sortedWithDuplicates(int size, int range) {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i > 0 && RAND.nextInt(5) == 0 ? values[i - 1]
+                    : range == Integer.MAX_VALUE ? RAND.nextInt() : RAND.nextInt(range);
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    private static int[] toIntArray(Set<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void testSortedIntIndex() throws IOException {
+        // the Eytzinger rank formula walks the tree in order
+        for (int n = 1; n <= 300; n++) {
+            int[] inOrder = new int[n];
+            int[] count = {0};
+            inOrderNodes(1, n, inOrder, count);
+            for (int rank = 0; rank < n; rank++) {
+                assertTrue(SortedIntIndex.rankOf(inOrder[rank], n) == rank, "rankOf wrong for n=" + n);
+            }
+        }
+
+        ParallelMergeSort sorter = new ParallelMergeSort(64, new ForkJoinPool(4));
+        Path dir = Files.createTempDirectory("sorted-index-test");
+        List<Path> files = new ArrayList<>(); // one file per index: Windows cannot replace a mapped file
+        try {
+            for (int size : new int[]{0, 1, 2, 3, 7, 8, 1000, 100_000}) {
+                int[] values = new int[size];
+                for (int i = 0; i < size; i++) {
+                    values[i] = i % 10 == 0 ? (RAND.nextBoolean() ? Integer.MIN_VALUE : Integer.MAX_VALUE) : RAND.nextInt(size * 2 + 1) - size;
+                }
+                int[] sorted = values.clone();
+                Arrays.sort(sorted);
+                int[] queries = new int[5_000];
+                for (int i = 0; i < queries.length; i++) {
+                    queries[i] = i < 4 ? new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1}[i]
+                            : RAND.nextInt(size * 2 + 5) - size - 2;
+                }
+                int[] upper = new int[queries.length];
+                for (int i = 0; i < queries.length; i++) {
+                    upper[i] = RAND.nextInt(4) == 0 ? queries[i] - 1 : queries[i] + RAND.nextInt(size + 1);
+                }
+
+                for (boolean eytzinger : new boolean[]{false, true}) {
+                    SortedIntIndex built = SortedIntIndex.build(values, sorter, eytzinger);
+                    Path file = dir.resolve("index-" + size + "-" + eytzinger + ".idx");
+                    files.add(file);
+                    built.save(file);
+                    SortedIntIndex loaded = SortedIntIndex.load(file);
+                    assertTrue(loaded.size() == size && loaded.isEytzinger() == eytzinger, "loaded index header differs");
+
+                    for (SortedIntIndex index : new SortedIntIndex[]{built, loaded}) {
+                        String label = "(size=" + size + ", eytzinger=" + eytzinger + (index == loaded ? ", loaded)" : ")");
+                        boolean[] contained = index.contains(queries);
+                        int[] lower = index.lowerBounds(queries);
+                        int[] counts = index.countRanges(queries, upper);
+                        for (int i = 0; i < queries.length; i++) {
+                            int q = queries[i];
+                            int expectedLower = lowerBoundOf(sorted, q);
+                            int expectedUpper = q == Integer.MAX_VALUE ? size : lowerBoundOf(sorted, q + 1);
+                            int expectedCount = queries[i] > upper[i] ? 0
+                                    : (upper[i] == Integer.MAX_VALUE ? size : lowerBoundOf(sorted, upper[i] + 1)) - expectedLower;
+                            assertTrue(index.lowerBound(q) == expectedLower && lower[i] == expectedLower, "lowerBound wrong " + label);
+                            assertTrue(index.upperBound(q) == expectedUpper, "upperBound wrong " + label);
+                            assertTrue(index.contains(q) == (expectedUpper > expectedLower) && contained[i] == index.contains(q),
+                                    "contains wrong " + label);
+                            assertTrue(index.countRange(q, upper[i]) == expectedCount && counts[i] == expectedCount,
+                                    "countRange wrong " + label);
+                        }
+                    }
+                }
+            }
+
+            // building and batch querying from a task of the index's own pool
+            int[] nested = randomArray(50_000);
+            int[] nestedSorted = nested.clone();
+            Arrays.sort(nestedSorted);
+            int[] nestedLower = sorter.getPool().submit(() ->
+                    SortedIntIndex.build(nested, sorter, true).lowerBounds(nestedSorted)).join();
+            for (int i = 0; i < nestedSorted.length; i++) {
+                assertTrue(nestedLower[i] == lowerBoundOf(nestedSorted, nestedSorted[i]), "index built in its own pool is wrong");
+            }
+
+            // saving a loaded index over its own source file keeps the data intact
+            int[] range = new int[1000];
+            for (int i = 0; i < range.length; i++) {
+                range[i] = i;
+            }
+            for (boolean eytzinger : new boolean[]{false, true}) {
+                Path self = dir.resolve("self-" + eytzinger + ".idx");
+                files.add(self);
+                SortedIntIndex.build(range, sorter, eytzinger).save(self);
+                SortedIntIndex source = SortedIntIndex.load(self);
+                source.save(self);
+                for (SortedIntIndex index : new SortedIntIndex[]{source, SortedIntIndex.load(self)}) {
+                    assertTrue(index.size() == 1000 && index.contains(500) && index.lowerBound(999) == 999
+                            && index.upperBound(999) == 1000, "index saved over its own file lost data");
+                }
+            }
+            try (Stream<Path> leftovers = Files.list(dir)) {
+                assertTrue(leftovers.allMatch(files::contains), "save left a temporary file behind");
+            }
+
+            Path bad = dir.resolve("bad.idx");
+            files.add(bad);
+            Files.write(bad, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+            boolean rejected = false;
+            try {
+                SortedIntIndex.load(bad);
+            } catch (IOException e) {
+                rejected = true;
+            }
+            assertTrue(rejected, "SortedIntIndex loaded a file with a bad header");
+        } finally {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(dir);
+            sorter.getPool().shutdown();
+        }
+    }
+
+    /**
+     * Collects the Eytzinger nodes under node (1-based, n nodes) in in-order sequence.
+     */
+    private static void inOrderNodes(int node, int n, int[] out, int[] count) {
+        if (node > n) {
+            return;
+        }
+        inOrderNodes(2 * node, n, out, count);
+        out[count[0]++] = node;
+        inOrderNodes(2 * node + 1, n, out, count);
+    }
+
+    private static int lowerBoundOf(int[] sorted, int value) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int[] drain(PrimitiveIterator.OfInt iterator) {
+        IntStream.Builder values = IntStream.builder();
+        iterator.forEachRemaining((IntConsumer) values::add);
+        return values.build().toArray();
+    }
+
+    /**
+     * Number of MergeSortTasks ParallelMergeSort creates for n elements.
+     */
+    private static long countTasks(int n, int threshold) {
+        if (n <= threshold) {
+            return 1;
+        }
+        int leftSize = (n + 1) / 2;
+        return 1 + countTasks(leftSize, threshold) + countTasks(n - leftSize, threshold);
+    }
+
+    /**
+     * Reference for ParallelMergeSort.mergeWork: walks the split recursion.
+     */
+    private static long countMergeWork(int n, int block) {
+        if (n <= Math.max(1, block)) {
+            return 0;
+        }
+        int leftSize = (n + 1) / 2;
+        return n + countMergeWork(leftSize, block) + countMergeWork(n - leftSize, block);
+    }
+
+    private static int[] randomArray(int size) {
+        int[] array = new int[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = RAND.nextInt(1000) - 500;
+        }
+        return array;
+    }
+
     private static void testEmptyArray(SortAlgorithm seq, SortAlgorithm par) {
         int[] empty = new int[0];
         int[] emptyCopy1 = Arrays.copyOf(empty, empty.length);
@@ -118,12 +1214,602 @@ public class SortCorrectnessTests {
         }
     }
 
+    private static void testParallelMergeMode(SortAlgorithm seq) {
+        int[] thresholds = {1, 2, 7, 64};
+        int[] sizes = {0, 1, 2, 3, 10, 31, 128, 1000, 20_000};
+
+        for (int threshold : thresholds) {
+            SortAlgorithm par = new ParallelMergeSort(threshold, true);
+            for (int size : sizes) {
+                int[] input = new int[size];
+                for (int i = 0; i < size; i++) {
+                    input[i] = RAND.nextInt(200) - 100;
+                }
+                assertSameAsSequential(seq, par, input, "parallel merge random(threshold=" + threshold + ", size=" + size + ")");
+                assertSameAsSequential(seq, par, SortBenchmark.generateReverseSortedArray(size),
+                        "parallel merge reverse(threshold=" + threshold + ", size=" + size + ")");
+            }
+        }
+    }
+
+    /**
+     * Runs random and reverse inputs of several sizes through another SortAlgorithm
+     * and checks that it matches SequentialMergeSort exactly.
+     */
+    private static void testVariantMatchesSequential(SortAlgorithm seq, SortAlgorithm variant, String name) {
+        int[] sizes = {0, 1, 2, 3, 10, 31, 128, 1000, 20_000};
+
+        for (int size : sizes) {
+            for (int t = 0; t < 5; t++) {
+                int[] input = new int[size];
+                for (int i = 0; i < size; i++) {
+                    input[i] = RAND.nextInt(200) - 100;
+                }
+                assertSameAsSequential(seq, variant, input, name + " random(size=" + size + ", trial=" + t + ")");
+            }
+            assertSameAsSequential(seq, variant, SortBenchmark.generateReverseSortedArray(size),
+                    name + " reverse(size=" + size + ")");
+        }
+    }
+
+    private static void testScratchPool(SortAlgorithm seq) {
+        ScratchBufferPool seqPool = new ScratchBufferPool(1024 * 1024);
+        ScratchBufferPool parPool = new ScratchBufferPool(1024 * 1024);
+        testVariantMatchesSequential(seq, new SequentialMergeSort(seqPool), "SequentialMergeSort(pool)");
+        testVariantMatchesSequential(seq, new ParallelMergeSort(7, false, parPool), "ParallelMergeSort(pool)");
+
+        // Same-sized sorts after the first one must not allocate
+        SortAlgorithm pooled = new ParallelMergeSort(64, false, parPool);
+        int[] input = new int[5000];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = RAND.nextInt();
+        }
+        pooled.sort(Arrays.copyOf(input, input.length));
+        long allocationsBefore = parPool.stats().allocations;
+        for (int r = 0; r < 10; r++) {
+            pooled.sort(Arrays.copyOf(input, input.length));
+        }
+        assertTrue(parPool.stats().allocations == allocationsBefore, "Scratch pool allocated in steady state");
+
+        // Retained memory never exceeds the cap; oversized buffers are dropped
+        ScratchBufferPool small = new ScratchBufferPool(4 * 1024);
+        int[] a = small.lease(512);   // 2 KB
+        int[] b = small.lease(512);   // 2 KB
+        int[] c = small.lease(1000);  // rounds to 1024 ints = 4 KB
+        small.release(a);
+        small.release(b);
+        assertTrue(small.stats().retainedBytes == 4 * 1024, "Scratch pool should retain both 2 KB buffers");
+        small.release(c);
+        assertTrue(small.stats().retainedBytes == 4 * 1024, "Scratch pool exceeded its cap");
+        assertTrue(small.stats().evictions == 2, "Scratch pool should evict the two oldest buffers");
+        small.release(new int[2048]);
+        assertTrue(small.stats().retainedBytes == 4 * 1024, "Scratch pool kept a buffer larger than its cap");
+    }
+
+    private static void testNaturalRuns(SortAlgorithm seq, SortAlgorithm natural) {
+        int[] sizes = {2, 3, 33, 100, 1000, 20_000};
+
+        for (int size : sizes) {
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = RAND.nextInt(50);
+            }
+            Arrays.sort(sorted);
+            assertSameAsSequential(seq, natural, sorted, "natural sorted(size=" + size + ")");
+
+            // ascending runs with a few appended records
+            int[] appended = Arrays.copyOf(sorted, size);
+            for (int i = Math.max(0, size - 5); i < size; i++) {
+                appended[i] = RAND.nextInt(50);
+            }
+            assertSameAsSequential(seq, natural, appended, "natural appended(size=" + size + ")");
+
+            // concatenated ascending and descending runs of random lengths, with duplicates
+            int[] runs = new int[size];
+            int i = 0;
+            while (i < size) {
+                int len = Math.min(size - i, 1 + RAND.nextInt(200));
+                int value = RAND.nextInt(100);
+                boolean descending = RAND.nextBoolean();
+                for (int k = 0; k < len; k++) {
+                    runs[i + k] = value;
+                    value += descending ? -RAND.nextInt(3) : RAND.nextInt(3);
+                }
+                i += len;
+            }
+            assertSameAsSequential(seq, natural, runs, "natural mixed runs(size=" + size + ")");
+        }
+
+        // the parallel block scan joins runs across blocks: sorted and strictly
+        // descending inputs stay one run, other inputs split into sorted runs
+        for (int blockSize : new int[]{1, 7, 50, 333}) {
+            for (int size : new int[]{2, 100, 1000, 5000}) {
+                String label = "(blockSize=" + blockSize + ", size=" + size + ")";
+                int[] ascending = new int[size];
+                int[] descending = new int[size];
+                int[] random = randomArray(size);
+                for (int i = 0; i < size; i++) {
+                    ascending[i] = i / 3;
+                    descending[i] = size - 2 * i;
+                }
+                for (int[] input : new int[][]{ascending, descending, random}) {
+                    int[] expected = input.clone();
+                    Arrays.sort(expected);
+                    int[] starts = NaturalMergeSort.findRuns(input, ForkJoinPool.commonPool(), blockSize);
+                    assertTrue(starts[0] == 0 && starts[starts.length - 1] == size, "findRuns bounds wrong " + label);
+                    for (int r = 0; r + 1 < starts.length; r++) {
+                        assertTrue(starts[r] < starts[r + 1], "findRuns produced an empty run " + label);
+                        for (int i = starts[r] + 1; i < starts[r + 1]; i++) {
+                            assertTrue(input[i - 1] <= input[i], "findRuns run not sorted " + label);
+                        }
+                    }
+                    if (input != random) {
+                        assertTrue(starts.length == 2, "presorted input split into runs " + label);
+                    }
+                    int[] actual = input.clone();
+                    Arrays.sort(actual);
+                    assertTrue(Arrays.equals(expected, actual), "findRuns lost values " + label);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record with a small key (many ties) and a unique id to detect reordering.
+     */
+    private static final class Item {
+        final int key;
+        final int id;
+
+        Item(int key, int id) {
+            this.key = key;
+            this.id = id;
+        }
+    }
+
+    private static void testGenericStableSort() {
+        Comparator<Item> byKey = Comparator.comparingInt(item -> item.key);
+        int[] sizes = {0, 1, 2, 3, 10, 31, 128, 1000, 20_000};
+
+        for (int threshold : new int[]{1, 7, 10_000}) {
+            ParallelMergeSort par = new ParallelMergeSort(threshold);
+            for (int size : sizes) {
+                Item[] input = new Item[size];
+                for (int i = 0; i < size; i++) {
+                    input[i] = new Item(RAND.nextInt(20), i);
+                }
+
+                Item[] expected = input.clone();
+                Arrays.sort(expected, byKey); // stable reference
+                Item[] actual = input.clone();
+                par.sort(actual, byKey);
+                for (int i = 0; i < size; i++) {
+                    assertTrue(actual[i] == expected[i],
+                            "Generic array sort not stable (threshold=" + threshold + ", size=" + size + ")");
+                }
+
+                List<Item> linked = new LinkedList<>(Arrays.asList(input));
+                par.sort(linked, byKey);
+                assertTrue(linked.equals(Arrays.asList(expected)),
+                        "Generic list sort not stable (threshold=" + threshold + ", size=" + size + ")");
+            }
+        }
+
+        // Null comparator means natural ordering
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add(RAND.nextInt(100) - 50);
+        }
+        List<Integer> expected = new ArrayList<>(values);
+        expected.sort(null);
+        new ParallelMergeSort(7).sort(values, null);
+        assertTrue(values.equals(expected), "Generic list sort with natural ordering is wrong");
+    }
+
+    private static void testPrimitiveSorters() {
+        int[] sizes = {0, 1, 2, 3, 10, 31, 128, 1000, 20_000};
+        double[] specialDoubles = {Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.MIN_VALUE, -Double.MAX_VALUE, Double.longBitsToDouble(0x7ff8000000000001L)};
+        float[] specialFloats = {Float.NaN, -0.0f, 0.0f, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY,
+                Float.MIN_VALUE, -Float.MAX_VALUE};
+
+        for (int threshold : new int[]{7, 10_000}) {
+            LongSortAlgorithm[] longSorters = {new SequentialLongMergeSort(), new ParallelLongMergeSort(threshold)};
+            DoubleSortAlgorithm[] doubleSorters = {new SequentialDoubleMergeSort(), new ParallelDoubleMergeSort(threshold)};
+            FloatSortAlgorithm[] floatSorters = {new SequentialFloatMergeSort(), new ParallelFloatMergeSort(threshold)};
+            ShortSortAlgorithm[] shortSorters = {new SequentialShortMergeSort(), new ParallelShortMergeSort(threshold)};
+            CharSortAlgorithm[] charSorters = {new SequentialCharMergeSort(), new ParallelCharMergeSort(threshold)};
+
+            for (int size : sizes) {
+                String label = "(threshold=" + threshold + ", size=" + size + ")";
+                long[] longs = new long[size];
+                double[] doubles = new double[size];
+                float[] floats = new float[size];
+                short[] shorts = new short[size];
+                char[] chars = new char[size];
+                for (int i = 0; i < size; i++) {
+                    longs[i] = RAND.nextBoolean() ? RAND.nextLong() : RAND.nextInt(50) - 25;
+                    doubles[i] = RAND.nextInt(4) == 0
+                            ? specialDoubles[RAND.nextInt(specialDoubles.length)]
+                            : RAND.nextInt(100) - 50.5;
+                    floats[i] = RAND.nextInt(4) == 0
+                            ? specialFloats[RAND.nextInt(specialFloats.length)]
+                            : RAND.nextInt(100) - 50.5f;
+                    shorts[i] = (short) RAND.nextInt();
+                    chars[i] = (char) RAND.nextInt();
+                }
+
+                long[] expectedLongs = longs.clone();
+                Arrays.sort(expectedLongs);
+                double[] expectedDoubles = doubles.clone();
+                Arrays.sort(expectedDoubles);
+                float[] expectedFloats = floats.clone();
+                Arrays.sort(expectedFloats);
+                short[] expectedShorts = shorts.clone();
+                Arrays.sort(expectedShorts);
+                char[] expectedChars = chars.clone();
+                Arrays.sort(expectedChars);
+
+                for (LongSortAlgorithm sorter : longSorters) {
+                    long[] actual = longs.clone();
+                    sorter.sort(actual);
+                    assertTrue(Arrays.equals(expectedLongs, actual), sorter.getClass().getSimpleName() + " != Arrays.sort " + label);
+                }
+                for (DoubleSortAlgorithm sorter : doubleSorters) {
+                    double[] actual = doubles.clone();
+                    sorter.sort(actual);
+                    // Arrays.equals(double[]) compares bit patterns, so -0.0 and 0.0 are distinguished
+                    assertTrue(Arrays.equals(expectedDoubles, actual), sorter.getClass().getSimpleName() + " != Arrays.sort " + label);
+                }
+                for (FloatSortAlgorithm sorter : floatSorters) {
+                    float[] actual = floats.clone();
+                    sorter.sort(actual);
+                    assertTrue(Arrays.equals(expectedFloats, actual), sorter.getClass().getSimpleName() + " != Arrays.sort " + label);
+                }
+                for (ShortSortAlgorithm sorter : shortSorters) {
+                    short[] actual = shorts.clone();
+                    sorter.sort(actual);
+                    assertTrue(Arrays.equals(expectedShorts, actual), sorter.getClass().getSimpleName() + " != Arrays.sort " + label);
+                }
+                for (CharSortAlgorithm sorter : charSorters) {
+                    char[] actual = chars.clone();
+                    sorter.sort(actual);
+                    assertTrue(Arrays.equals(expectedChars, actual), sorter.getClass().getSimpleName() + " != Arrays.sort " + label);
+                }
+            }
+        }
+    }
+
+    private static void testRadixPasses(SortAlgorithm seq) {
+        SortAlgorithm radix = new ParallelRadixSort(1);
+        testVariantMatchesSequential(seq, radix, "ParallelRadixSort");
+
+        int size = 100_000;
+        int[] fullRange = new int[size];
+        int[] smallRange = new int[size];
+        int[] highBitsOnly = new int[size];
+        for (int i = 0; i < size; i++) {
+            fullRange[i] = RAND.nextInt();
+            smallRange[i] = RAND.nextInt(1000) - 500;  // upper digits shared within each sign
+            highBitsOnly[i] = RAND.nextInt(256) << 24;  // lower three passes are skipped
+        }
+        fullRange[0] = Integer.MIN_VALUE;
+        fullRange[1] = Integer.MAX_VALUE;
+        fullRange[2] = -1;
+        fullRange[3] = 0;
+        assertSameAsSequential(seq, radix, fullRange, "radix full range");
+        assertSameAsSequential(seq, radix, smallRange, "radix small range");
+        assertSameAsSequential(seq, radix, highBitsOnly, "radix high bits only");
+        assertSameAsSequential(seq, radix, new int[size], "radix all zeros");
+    }
+
+    private static void testArgSort() {
+        int[] sizes = {0, 1, 2, 3, 10, 31, 128, 1000, 20_000};
+
+        for (int threshold : new int[]{1, 7, 10_000}) {
+            ParallelArgSort argSort = new ParallelArgSort(threshold);
+            for (int size : sizes) {
+                String label = "(threshold=" + threshold + ", size=" + size + ")";
+                int[] keys = new int[size];
+                long[] ids = new long[size];
+                String[] names = new String[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = RAND.nextInt(20) - 10;
+                    ids[i] = 1000L + i;
+                    names[i] = "row" + i;
+                }
+                int[] keysBefore = keys.clone();
+
+                int[] perm = argSort.argsort(keys);
+                assertTrue(Arrays.equals(keys, keysBefore), "argsort modified the keys " + label);
+                for (int i = 1; i < size; i++) {
+                    int a = perm[i - 1];
+                    int b = perm[i];
+                    assertTrue(keys[a] < keys[b] || (keys[a] == keys[b] && a < b), "argsort not stable/sorted " + label);
+                }
+
+                int[] sortedKeys = argSort.applyPermutation(perm, keys);
+                long[] sortedIds = argSort.applyPermutation(perm, ids);
+                String[] sortedNames = argSort.applyPermutation(perm, names);
+                int[] expected = keys.clone();
+                Arrays.sort(expected);
+                assertTrue(Arrays.equals(expected, sortedKeys), "applyPermutation(keys) not sorted " + label);
+                for (int i = 0; i < size; i++) {
+                    int row = (int) (sortedIds[i] - 1000L);
+                    assertTrue(keys[row] == sortedKeys[i] && sortedNames[i].equals("row" + row),
+                            "applyPermutation columns misaligned " + label);
+                }
+            }
+        }
+    }
+
+    private static void testExternalMergeSort() throws IOException {
+        Path dir = Files.createTempDirectory("external-sort-test");
+        try {
+            Path input = dir.resolve("input.bin");
+            Path output = dir.resolve("output.bin");
+            int[] sizes = {0, 1, 999, 10_000, 54_321};
+
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                // chunk 1000 and fan-in 3 force several intermediate merge passes
+                ExternalMergeSort external = new ExternalMergeSort(1000, 3, dir, order, 64);
+                for (int size : sizes) {
+                    String label = "(" + order + ", size=" + size + ")";
+
+                    int[] ints = new int[size];
+                    for (int i = 0; i < size; i++) {
+                        ints[i] = RAND.nextInt();
+                    }
+                    ByteBuffer intBytes = ByteBuffer.allocate(size * Integer.BYTES).order(order);
+                    intBytes.asIntBuffer().put(ints);
+                    Files.write(input, intBytes.array());
+                    ExternalMergeSort.Stats stats = external.sortInts(input, output);
+                    int[] sortedInts = new int[size];
+                    ByteBuffer.wrap(Files.readAllBytes(output)).order(order).asIntBuffer().get(sortedInts);
+                    Arrays.sort(ints);
+                    assertTrue(Arrays.equals(ints, sortedInts), "External int sort wrong " + label);
+                    assertTrue(stats.getRuns() == (size + 999) / 1000, "External int sort run count " + label);
+
+                    long[] longs = new long[size];
+                    for (int i = 0; i < size; i++) {
+                        longs[i] = RAND.nextLong();
+                    }
+                    ByteBuffer longBytes = ByteBuffer.allocate(size * Long.BYTES).order(order);
+                    longBytes.asLongBuffer().put(longs);
+                    Files.write(input, longBytes.array());
+                    external.sortLongs(input, output);
+                    long[] sortedLongs = new long[size];
+                    ByteBuffer.wrap(Files.readAllBytes(output)).order(order).asLongBuffer().get(sortedLongs);
+                    Arrays.sort(longs);
+                    assertTrue(Arrays.equals(longs, sortedLongs), "External long sort wrong " + label);
+                }
+            }
+
+            try (Stream<Path> left = Files.list(dir)) {
+                assertTrue(left.count() == 2, "External sort left run files behind");
+            }
+
+            // a failing merge still deletes every run file, merged ones included
+            Files.delete(output);
+            boolean failed = false;
+            try {
+                new ExternalMergeSort(1000, 3, dir, ByteOrder.BIG_ENDIAN, 64).sortLongs(input, dir.resolve("missing/out.bin"));
+            } catch (IOException e) {
+                failed = true;
+            }
+            assertTrue(failed, "External sort into a missing directory should fail");
+            try (Stream<Path> left = Files.list(dir)) {
+                assertTrue(left.count() == 1, "Failed external sort left run files behind");
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void testBufferMergeSort() throws IOException {
+        int[] sizes = {0, 1, 2, 3, 10, 31, 128, 1000, 20_000};
+
+        for (int threshold : new int[]{7, 10_000}) {
+            ParallelBufferMergeSort sorter = new ParallelBufferMergeSort(threshold);
+            for (int size : sizes) {
+                String label = "(threshold=" + threshold + ", size=" + size + ")";
+                int[] ints = new int[size + 10];
+                long[] longs = new long[size + 10];
+                for (int i = 0; i < ints.length; i++) {
+                    ints[i] = RAND.nextInt(200) - 100;
+                    longs[i] = RAND.nextLong();
+                }
+                int[] expectedInts = ints.clone();
+                Arrays.sort(expectedInts, 5, 5 + size);
+                long[] expectedLongs = longs.clone();
+                Arrays.sort(expectedLongs, 5, 5 + size);
+
+                // heap buffer; only [5, 5 + size) is sorted
+                IntBuffer heap = IntBuffer.wrap(ints.clone());
+                heap.position(5).limit(5 + size);
+                sorter.sort(heap);
+                assertTrue(heap.position() == 5 && heap.limit() == 5 + size, "IntBuffer position/limit changed " + label);
+                assertTrue(Arrays.equals(expectedInts, heap.array()), "Heap IntBuffer sort wrong " + label);
+
+                for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                    IntBuffer direct = ByteBuffer.allocateDirect(ints.length * Integer.BYTES).order(order).asIntBuffer();
+                    direct.put(ints).position(5).limit(5 + size);
+                    sorter.sort(direct);
+                    int[] actual = new int[ints.length];
+                    direct.clear();
+                    direct.get(actual);
+                    assertTrue(Arrays.equals(expectedInts, actual), "Direct IntBuffer sort wrong " + order + " " + label);
+
+                    LongBuffer directLongs = ByteBuffer.allocateDirect(longs.length * Long.BYTES).order(order).asLongBuffer();
+                    directLongs.put(longs).position(5).limit(5 + size);
+                    sorter.sort(directLongs);
+                    long[] actualLongs = new long[longs.length];
+                    directLongs.clear();
+                    directLongs.get(actualLongs);
+                    assertTrue(Arrays.equals(expectedLongs, actualLongs), "Direct LongBuffer sort wrong " + order + " " + label);
+                }
+            }
+        }
+
+        // memory-mapped file sorted in place
+        Path file = Files.createTempFile("buffer-sort-test", ".bin");
+        try {
+            int[] values = new int[50_000];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = RAND.nextInt();
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) values.length * Integer.BYTES);
+                mapped.asIntBuffer().put(values);
+                new ParallelBufferMergeSort(1000).sort(mapped.asIntBuffer());
+                mapped.force();
+            }
+            int[] actual = new int[values.length];
+            ByteBuffer.wrap(Files.readAllBytes(file)).asIntBuffer().get(actual);
+            Arrays.sort(values);
+            assertTrue(Arrays.equals(values, actual), "Mapped IntBuffer sort wrong");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        boolean threw = false;
+        try {
+            new ParallelBufferMergeSort().sort(IntBuffer.wrap(new int[]{2, 1}).asReadOnlyBuffer());
+        } catch (ReadOnlyBufferException expected) {
+            threw = true;
+        }
+        assertTrue(threw, "Sorting a read-only buffer should throw");
+    }
+
+    private static void testDataGenerators(SortAlgorithm seq) {
+        int size = 20_000;
+        SortAlgorithm[] sorters = {new ParallelMergeSort(64), new ParallelMergeSort(64, true),
+                new ParallelPingPongMergeSort(64), new NaturalMergeSort(64), new ParallelRadixSort(64),
+                new ParallelSampleSort(64, new ForkJoinPool(8))};
+
+        for (String name : DataGenerators.names()) {
+            int[] first = DataGenerators.generate(name, size, 7);
+            int[] second = DataGenerators.generate(name, size, 7);
+            assertTrue(first.length == size, name + ": wrong size");
+            assertTrue(Arrays.equals(first, second), name + ": same seed gave different data");
+            assertTrue(DataGenerators.generate(name, 0, 7).length == 0, name + ": size 0 not supported");
+
+            for (SortAlgorithm sorter : sorters) {
+                assertSameAsSequential(seq, sorter, first, name + " " + sorter.getClass().getSimpleName());
+            }
+        }
+
+        assertTrue(SortBenchmark.isSorted(DataGenerators.generate("Sorted", size, 1)), "Sorted pattern not sorted");
+        assertTrue(descents(DataGenerators.generate("Reverse", size, 1)) > size - 10, "Reverse pattern not descending");
+        assertTrue(descents(DataGenerators.generate("Nearly sorted", size, 1)) <= size / 100 * 2, "Nearly sorted has too many descents");
+        assertTrue(descents(DataGenerators.generate("Sawtooth", size, 1)) <= size / 256, "Sawtooth runs too short");
+        int[] pipe = DataGenerators.generate("Organ pipe", size, 1);
+        int[] pipeDown = Arrays.copyOfRange(pipe, size / 2, size);
+        for (int i = 0; i < pipeDown.length / 2; i++) {
+            int tmp = pipeDown[i];
+            pipeDown[i] = pipeDown[pipeDown.length - 1 - i];
+            pipeDown[pipeDown.length - 1 - i] = tmp;
+        }
+        assertTrue(SortBenchmark.isSorted(Arrays.copyOfRange(pipe, 0, size / 2)) && SortBenchmark.isSorted(pipeDown),
+                "Organ pipe not up-then-down");
+        assertTrue(distinct(DataGenerators.generate("Few unique", size, 1)) <= 8, "Few unique has too many values");
+        assertTrue(distinct(DataGenerators.generate("Duplicates", size, 1)) <= (int) Math.sqrt(size), "Duplicates has too many values");
+        assertTrue(distinct(DataGenerators.generate("Zipf", size, 1)) <= size / 100, "Zipf has too many values");
+        assertTrue(distinct(DataGenerators.fewUnique(1).generate(size, new Random(1))) == 1, "fewUnique(1) not constant");
+
+        boolean rejected = false;
+        try {
+            DataGenerators.fewUnique(0);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assertTrue(rejected, "fewUnique accepted k = 0");
+    }
+
+    private static void testThresholdTuner(SortAlgorithm seq) throws IOException {
+        Path dir = Files.createTempDirectory("threshold-tuner-test");
+        Path profile = dir.resolve("profile.properties");
+        try {
+            ThresholdTuner first = new ThresholdTuner(profile);
+            int intLeaf = first.minLeafSize(ThresholdTuner.ElementType.INT);
+            assertTrue(first.hasCalibrated(), "Tuner should calibrate without a profile");
+            assertTrue(Files.isRegularFile(profile), "Tuner did not save its profile");
+            try (Stream<Path> saved = Files.list(dir)) {
+                assertTrue(saved.count() == 1, "Tuner left a temporary profile file behind");
+            }
+
+            ThresholdTuner second = new ThresholdTuner(profile);
+            assertTrue(second.minLeafSize(ThresholdTuner.ElementType.INT) == intLeaf, "Reloaded profile differs");
+            assertTrue(!second.hasCalibrated(), "Tuner recalibrated despite a saved profile");
+
+            // concurrent first calls all wait for the one load and see the same sizes
+            ThresholdTuner shared = new ThresholdTuner(profile);
+            int[] seen = new int[8];
+            Thread[] callers = new Thread[seen.length];
+            for (int t = 0; t < callers.length; t++) {
+                int slot = t;
+                callers[t] = new Thread(() -> seen[slot] = shared.minLeafSize(ThresholdTuner.ElementType.INT));
+                callers[t].start();
+            }
+            for (Thread caller : callers) {
+                try {
+                    caller.join();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            for (int leaf : seen) {
+                assertTrue(leaf == intLeaf, "Concurrent first calls saw different leaf sizes");
+            }
+
+            // single worker => whole array is one sequential leaf; more workers => smaller pieces
+            assertTrue(second.thresholdFor(5_000_000, 1, ThresholdTuner.ElementType.INT) == 5_000_000, "Single worker should not split");
+            int split = second.thresholdFor(5_000_000, 8, ThresholdTuner.ElementType.INT);
+            assertTrue(split >= intLeaf && split < 5_000_000, "Auto threshold out of range: " + split);
+
+            testVariantMatchesSequential(seq, ParallelMergeSort.autoTuned(second), "ParallelMergeSort(auto)");
+            ParallelLongMergeSort longAuto = ParallelLongMergeSort.autoTuned(second);
+            for (int size : new int[]{0, 1, 1000, 100_000}) {
+                long[] values = new long[size];
+                for (int i = 0; i < size; i++) {
+                    values[i] = RAND.nextLong();
+                }
+                long[] expected = values.clone();
+                Arrays.sort(expected);
+                longAuto.sort(values);
+                assertTrue(Arrays.equals(expected, values), "ParallelLongMergeSort(auto) wrong (size=" + size + ")");
+            }
+        } finally {
+            Files.deleteIfExists(profile);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static int descents(int[] array) {
+        int count = 0;
+        for (int i = 1; i < array.length; i++) {
+            if (array[i - 1] > array[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int distinct(int[] array) {
+        return (int) Arrays.stream(array).distinct().count();
+    }
+
     private static void assertSameAsSequential(SortAlgorithm seq, SortAlgorithm par, int[] original, String label) {
         int[] a = Arrays.copyOf(original, original.length);
         int[] b = Arrays.copyOf(original, original.length);
 
         runQuietly(() -> seq.sort(a));
-        par.sort(b);
+        runQuietly(() -> par.sort(b));
 
         assertTrue(SortBenchmark.isSorted(a), "Sequential not sorted: " + label);
         assertTrue(SortBenchmark.isSorted(b), "Parallel not sorted: " + label);
@@ -141,7 +1827,8 @@ public class SortCorrectnessTests {
 
     /**
      * SequentialMergeSort currently prints informational messages for some edge cases.
-     * For clean test output, we temporarily suppress System.out while executing the sequential sort.
+     * For clean test output, we temporarily suppress System.out while executing the sorts
+     * (variants may wrap SequentialMergeSort).
      */
     private static void runQuietly(Runnable action) {
         PrintStream originalOut = System.out;
@@ -6,17 +6,27 @@ import java.awt.event.ActionEvent;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Simple Swing GUI to experiment with different sorting algorithms.
  * <p>
  * Allows choosing:
- * - Algorithm: Sequential merge sort, Parallel merge sort, Arrays.sort, Arrays.parallelSort
+ * - Algorithm: Sequential merge sort, Parallel merge sort, Parallel radix sort, Parallel sample sort,
+ *   Arrays.sort, Arrays.parallelSort
  * - Input size
- * - Input pattern: random or reverse-sorted
- * - Threshold for parallel merge sort
+ * - Input pattern: any generator registered in DataGenerators, with a seed
+ * - Threshold for parallel merge sort (fallback threshold for parallel radix sort,
+ *   minimum bucket size for parallel sample sort),
+ *   or "auto" to let ThresholdTuner pick it per run
  * <p>
  * Displays execution time and a preview of the first elements before and after sorting.
+ * Sorts run in the background (sortAsync), so the window stays responsive; Parallel Merge
+ * Sort reports progress and stops when cancelled, other algorithms are only abandoned.
  */
 public class SortGUI {
 
@@ -36,20 +46,28 @@ public class SortGUI {
         gbc.anchor = GridBagConstraints.WEST;
 
         JLabel algorithmLabel = new JLabel("Algorithm:");
-        String[] algorithms = {"Sequential Merge Sort", "Parallel Merge Sort", "Arrays.sort", "Arrays.parallelSort"};
+        String[] algorithms = {"Sequential Merge Sort", "Parallel Merge Sort", "Parallel Radix Sort", "Parallel Sample Sort", "Arrays.sort", "Arrays.parallelSort"};
         JComboBox<String> algorithmCombo = new JComboBox<>(algorithms);
 
         JLabel sizeLabel = new JLabel("Array size:");
         JTextField sizeField = new JTextField("100000", 10);
 
         JLabel patternLabel = new JLabel("Pattern:");
-        String[] patterns = {"Random", "Reverse"};
+        String[] patterns = DataGenerators.names().toArray(new String[0]);
         JComboBox<String> patternCombo = new JComboBox<>(patterns);
 
+        JLabel seedLabel = new JLabel("Seed:");
+        JTextField seedField = new JTextField("42", 10);
+
         JLabel thresholdLabel = new JLabel("Parallel threshold:");
         JTextField thresholdField = new JTextField("10000", 10);
 
         JButton runButton = new JButton("Run Sort");
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        JProgressBar progressBar = new JProgressBar(0, 1000);
+        progressBar.setStringPainted(true);
+        AtomicReference<CompletableFuture<int[]>> runningSort = new AtomicReference<>();
 
         JTextArea outputArea = new JTextArea();
         outputArea.setEditable(false);
@@ -80,6 +98,13 @@ public class SortGUI {
         gbc.gridx = 1;
         controlPanel.add(patternCombo, gbc);
 
+        row++;
+        gbc.gridx = 0;
+        gbc.gridy = row;
+        controlPanel.add(seedLabel, gbc);
+        gbc.gridx = 1;
+        controlPanel.add(seedField, gbc);
+
         row++;
         gbc.gridx = 0;
         gbc.gridy = row;
@@ -92,7 +117,11 @@ public class SortGUI {
         gbc.gridy = row;
         gbc.gridwidth = 2;
         gbc.anchor = GridBagConstraints.CENTER;
-        controlPanel.add(runButton, gbc);
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 0));
+        buttonPanel.add(runButton);
+        buttonPanel.add(cancelButton);
+        buttonPanel.add(progressBar);
+        controlPanel.add(buttonPanel, gbc);
 
         JTabbedPane tabbedPane = new JTabbedPane();
         tabbedPane.addTab("Log", scrollPane);
@@ -118,26 +147,32 @@ public class SortGUI {
                 return;
             }
 
+            long seed;
+            try {
+                seed = Long.parseLong(seedField.getText().trim());
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(frame, "Please enter an integer seed.",
+                        "Invalid Input", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
             int threshold = 10_000;
-            if ("Parallel Merge Sort".equals(algorithmName)) {
+            boolean autoThreshold = "auto".equalsIgnoreCase(thresholdField.getText().trim());
+            if (!autoThreshold && ("Parallel Merge Sort".equals(algorithmName) || "Parallel Radix Sort".equals(algorithmName)
+                    || "Parallel Sample Sort".equals(algorithmName))) {
                 try {
                     threshold = Integer.parseInt(thresholdField.getText().trim());
                     if (threshold <= 0) {
                         throw new NumberFormatException();
                     }
                 } catch (NumberFormatException ex) {
-                    JOptionPane.showMessageDialog(frame, "Please enter a positive integer for threshold.",
+                    JOptionPane.showMessageDialog(frame, "Please enter a positive integer or \"auto\" for threshold.",
                             "Invalid Input", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
             }
 
-            int[] original;
-            if ("Random".equals(patternName)) {
-                original = SortBenchmark.generateRandomArray(size);
-            } else {
-                original = SortBenchmark.generateReverseSortedArray(size);
-            }
+            int[] original = DataGenerators.generate(patternName, size, seed);
 
             int[] arrayToSort = Arrays.copyOf(original, original.length);
 
@@ -145,35 +180,90 @@ public class SortGUI {
             if ("Sequential Merge Sort".equals(algorithmName)) {
                 algorithm = new SequentialMergeSort();
             } else if ("Parallel Merge Sort".equals(algorithmName)) {
-                algorithm = new ParallelMergeSort(threshold);
+                algorithm = autoThreshold ? ParallelMergeSort.autoTuned() : new ParallelMergeSort(threshold);
+            } else if ("Parallel Radix Sort".equals(algorithmName)) {
+                algorithm = new ParallelRadixSort(threshold);
+            } else if ("Parallel Sample Sort".equals(algorithmName)) {
+                algorithm = new ParallelSampleSort(threshold);
             } else if ("Arrays.sort".equals(algorithmName)) {
                 algorithm = new SortBenchmark.ArraysSortAlgorithm();
             } else { // Arrays.parallelSort
                 algorithm = new SortBenchmark.ArraysParallelSortAlgorithm();
             }
 
+            runButton.setEnabled(false);
+            cancelButton.setEnabled(true);
+            progressBar.setValue(0);
+            progressBar.setIndeterminate(!(algorithm instanceof ParallelMergeSort));
+            progressBar.setString(null);
+
             long start = System.nanoTime();
-            algorithm.sort(arrayToSort);
-            long end = System.nanoTime();
-
-            long durationMs = (end - start) / 1_000_000;
-            boolean sorted = SortBenchmark.isSorted(arrayToSort);
-
-            int previewLength = Math.min(20, arrayToSort.length);
-            int[] beforePreview = Arrays.copyOf(original, previewLength);
-            int[] afterPreview = Arrays.copyOf(arrayToSort, previewLength);
-
-            outputArea.append("Algorithm: " + algorithmName + "\n");
-            outputArea.append("Pattern : " + patternName + "\n");
-            outputArea.append("Size    : " + size + "\n");
-            outputArea.append(String.format("Time    : %.1f ms%n", (double) durationMs));
-            outputArea.append("Sorted  : " + sorted + "\n");
-            outputArea.append("Before (first " + previewLength + "): " + Arrays.toString(beforePreview) + "\n");
-            outputArea.append("After  (first " + previewLength + "): " + Arrays.toString(afterPreview) + "\n");
-            outputArea.append("------------------------------------------------------------\n");
-
-            // Update performance chart with latest measurement
-            performanceChartPanel.addPoint(size, (double) durationMs, algorithmName);
+            CompletableFuture<int[]> future;
+            if (algorithm instanceof ParallelMergeSort) {
+                // post only when the permille value grows: at most 1000 EDT events per sort,
+                // each showing the latest value rather than the one it was posted for
+                AtomicLong shown = new AtomicLong(-1);
+                future = ((ParallelMergeSort) algorithm).sortAsync(arrayToSort, (merged, total) -> {
+                    long permille = 1000 * merged / total;
+                    if (permille > shown.getAndAccumulate(permille, Math::max)) {
+                        SwingUtilities.invokeLater(() -> progressBar.setValue((int) shown.get()));
+                    }
+                });
+            } else {
+                future = algorithm.sortAsync(arrayToSort);
+            }
+            runningSort.set(future);
+
+            future.whenComplete((result, failure) -> {
+                long end = System.nanoTime();
+                SwingUtilities.invokeLater(() -> {
+                    runningSort.set(null);
+                    runButton.setEnabled(true);
+                    cancelButton.setEnabled(false);
+                    progressBar.setIndeterminate(false);
+
+                    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    if (cause instanceof CancellationException) {
+                        progressBar.setString("Cancelled");
+                        outputArea.append("Algorithm: " + algorithmName + " (size " + size + ") cancelled\n");
+                        outputArea.append("------------------------------------------------------------\n");
+                        return;
+                    }
+                    if (cause != null) {
+                        progressBar.setString("Failed");
+                        outputArea.append("Algorithm: " + algorithmName + " failed: " + cause + "\n");
+                        outputArea.append("------------------------------------------------------------\n");
+                        return;
+                    }
+                    progressBar.setValue(progressBar.getMaximum());
+
+                    long durationMs = (end - start) / 1_000_000;
+                    boolean sorted = SortBenchmark.isSorted(arrayToSort);
+
+                    int previewLength = Math.min(20, arrayToSort.length);
+                    int[] beforePreview = Arrays.copyOf(original, previewLength);
+                    int[] afterPreview = Arrays.copyOf(arrayToSort, previewLength);
+
+                    outputArea.append("Algorithm: " + algorithmName + "\n");
+                    outputArea.append("Pattern : " + patternName + " (seed " + seed + ")\n");
+                    outputArea.append("Size    : " + size + "\n");
+                    outputArea.append(String.format("Time    : %.1f ms%n", (double) durationMs));
+                    outputArea.append("Sorted  : " + sorted + "\n");
+                    outputArea.append("Before (first " + previewLength + "): " + Arrays.toString(beforePreview) + "\n");
+                    outputArea.append("After  (first " + previewLength + "): " + Arrays.toString(afterPreview) + "\n");
+                    outputArea.append("------------------------------------------------------------\n");
+
+                    // Update performance chart with latest measurement
+                    performanceChartPanel.addPoint(size, (double) durationMs, algorithmName);
+                });
+            });
+        });
+
+        cancelButton.addActionListener((ActionEvent e) -> {
+            CompletableFuture<int[]> future = runningSort.get();
+            if (future != null) {
+                future.cancel(true);
+            }
         });
 
         frame.setVisible(true);
@@ -269,7 +359,7 @@ public class SortGUI {
             // Legend
             int lx = x0 + 10;
             int ly = y1 + 10;
-            String[] algs = {"Sequential Merge Sort", "Parallel Merge Sort", "Arrays.sort", "Arrays.parallelSort"};
+            String[] algs = {"Sequential Merge Sort", "Parallel Merge Sort", "Parallel Radix Sort", "Parallel Sample Sort", "Arrays.sort", "Arrays.parallelSort"};
             for (String a : algs) {
                 g.setColor(colorForAlgorithm(a));
                 g.fillRect(lx, ly - 8, 10, 10);
@@ -339,6 +429,8 @@ public class SortGUI {
         private Color colorForAlgorithm(String algorithm) {
             if ("Sequential Merge Sort".equals(algorithm)) return new Color(0x1f77b4); // blue
             if ("Parallel Merge Sort".equals(algorithm)) return new Color(0xff7f0e);  // orange
+            if ("Parallel Radix Sort".equals(algorithm)) return new Color(0x9467bd);  // purple
+            if ("Parallel Sample Sort".equals(algorithm)) return new Color(0x8c564b); // brown
             if ("Arrays.sort".equals(algorithm)) return new Color(0x2ca02c);          // green
             if ("Arrays.parallelSort".equals(algorithm)) return new Color(0xd62728);  // red
             return Color.GRAY;
@@ -0,0 +1,258 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Recorder for one instrumented ParallelMergeSort call.
+ * <p>
+ * The sort tasks report every leaf (sequential sort of a segment) and every merge with
+ * its tree depth and duration. The recorder keeps counters, per-level timings and
+ * log2 duration histograms, and emits {@link SortEvent} and {@link TaskEvent} to JDK
+ * Flight Recorder. Nothing here runs unless the sorter was built with
+ * {@code instrumented(true)}: the tasks only hold a null reference otherwise.
+ * <p>
+ * {@link #snapshot} turns the recording into an immutable {@link Snapshot}, available
+ * from {@link ParallelMergeSort#getLastMetrics()} after each sort.
+ */
+public final class SortMetrics {
+
+    static final int MAX_LEVELS = 32; // int-sized arrays never split deeper than 31 levels
+    static final int HISTOGRAM_BUCKETS = 40; // bucket i: durations in [2^i, 2^(i+1)) ns
+
+    private final LongAdder tasks = new LongAdder();
+    private final LongAdder leaves = new LongAdder();
+    private final LongAdder merges = new LongAdder();
+    private final LongAdder skippedMerges = new LongAdder();
+    private final LongAdder leafNanos = new LongAdder();
+    private final LongAdder mergeNanos = new LongAdder();
+    private final AtomicLongArray levelTasks = new AtomicLongArray(MAX_LEVELS);
+    private final AtomicLongArray levelNanos = new AtomicLongArray(MAX_LEVELS);
+    private final AtomicLongArray leafHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private final AtomicLongArray mergeHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    SortMetrics() {
+    }
+
+    /**
+     * Called when a task starts its leaf sort or merge; the returned event carries the start time.
+     */
+    TaskEvent begin() {
+        TaskEvent event = new TaskEvent();
+        event.begin();
+        event.startNanos = System.nanoTime();
+        return event;
+    }
+
+    void leafDone(TaskEvent event, int depth, int length) {
+        long nanos = System.nanoTime() - event.startNanos;
+        leaves.increment();
+        leafNanos.add(nanos);
+        leafHistogram.incrementAndGet(bucket(nanos));
+        taskDone(event, depth, length, "leaf", nanos);
+    }
+
+    void mergeDone(TaskEvent event, int depth, int length, boolean skipped, boolean parallel) {
+        long nanos = System.nanoTime() - event.startNanos;
+        if (skipped) {
+            skippedMerges.increment();
+        } else {
+            merges.increment();
+            mergeNanos.add(nanos);
+            mergeHistogram.incrementAndGet(bucket(nanos));
+        }
+        taskDone(event, depth, length, skipped ? "skipped merge" : parallel ? "parallel merge" : "merge", nanos);
+    }
+
+    private void taskDone(TaskEvent event, int depth, int length, String kind, long nanos) {
+        tasks.increment();
+        int level = Math.min(depth, MAX_LEVELS - 1);
+        levelTasks.incrementAndGet(level);
+        levelNanos.addAndGet(level, nanos);
+        threads.add(Thread.currentThread());
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.depth = depth;
+            event.elements = length;
+            event.kind = kind;
+            event.commit();
+        }
+    }
+
+    private static int bucket(long nanos) {
+        return Math.min(HISTOGRAM_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(1, nanos)));
+    }
+
+    /**
+     * Freezes the recording and emits the per-sort JFR event.
+     */
+    Snapshot snapshot(int elements, int threshold, int parallelism, long wallNanos, long steals) {
+        int levels = 0;
+        for (int i = 0; i < MAX_LEVELS; i++) {
+            if (levelTasks.get(i) > 0) {
+                levels = i + 1;
+            }
+        }
+        Snapshot snapshot = new Snapshot(elements, threshold, parallelism, wallNanos, tasks.sum(), leaves.sum(),
+                merges.sum(), skippedMerges.sum(), leafNanos.sum(), mergeNanos.sum(), steals, threads.size(),
+                toArray(levelTasks, levels), toArray(levelNanos, levels),
+                toArray(leafHistogram, HISTOGRAM_BUCKETS), toArray(mergeHistogram, HISTOGRAM_BUCKETS));
+
+        SortEvent event = new SortEvent();
+        if (event.shouldCommit()) {
+            event.elements = elements;
+            event.threshold = threshold;
+            event.parallelism = parallelism;
+            event.wallTime = wallNanos;
+            event.tasks = snapshot.tasks;
+            event.leafTime = snapshot.leafNanos;
+            event.mergeTime = snapshot.mergeNanos;
+            event.steals = steals;
+            event.threadsUsed = snapshot.threadsUsed;
+            event.commit();
+        }
+        return snapshot;
+    }
+
+    private static long[] toArray(AtomicLongArray values, int length) {
+        long[] result = new long[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Immutable metrics of one instrumented sort. Times are summed over all threads,
+     * so leafNanos + mergeNanos can exceed wallNanos on several cores.
+     */
+    public static final class Snapshot {
+        public final int elements;
+        public final int threshold;
+        public final int parallelism;
+        public final long wallNanos;
+        /** MergeSortTasks run; each one is either a leaf or a merge step. */
+        public final long tasks;
+        public final long leaves;
+        public final long merges;
+        public final long skippedMerges;
+        public final long leafNanos;
+        public final long mergeNanos;
+        /** Pool steal count delta over the sort (includes other work if the pool is shared). */
+        public final long steals;
+        /** Distinct threads that ran sort tasks (the caller can be one of them). */
+        public final int threadsUsed;
+        /** Indexed by tree depth (0 = root). */
+        public final long[] levelTasks;
+        public final long[] levelNanos;
+        /** Bucket i counts durations in [2^i, 2^(i+1)) ns. */
+        public final long[] leafHistogram;
+        public final long[] mergeHistogram;
+
+        Snapshot(int elements, int threshold, int parallelism, long wallNanos, long tasks, long leaves, long merges,
+                 long skippedMerges, long leafNanos, long mergeNanos, long steals, int threadsUsed,
+                 long[] levelTasks, long[] levelNanos, long[] leafHistogram, long[] mergeHistogram) {
+            this.elements = elements;
+            this.threshold = threshold;
+            this.parallelism = parallelism;
+            this.wallNanos = wallNanos;
+            this.tasks = tasks;
+            this.leaves = leaves;
+            this.merges = merges;
+            this.skippedMerges = skippedMerges;
+            this.leafNanos = leafNanos;
+            this.mergeNanos = mergeNanos;
+            this.steals = steals;
+            this.threadsUsed = threadsUsed;
+            this.levelTasks = levelTasks;
+            this.levelNanos = levelNanos;
+            this.leafHistogram = leafHistogram;
+            this.mergeHistogram = mergeHistogram;
+        }
+
+        /**
+         * Workers of the pool that ran no sort task.
+         */
+        public int idleWorkers() {
+            return Math.max(0, parallelism - threadsUsed);
+        }
+
+        /**
+         * Busy time (leaves + merges) over the time all workers were available, 0..1.
+         */
+        public double utilization() {
+            return wallNanos == 0 ? 0 : Math.min(1.0, (leafNanos + mergeNanos) / ((double) wallNanos * parallelism));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("elements=%d, threshold=%d, parallelism=%d, wall=%.2f ms, tasks=%d, leaves=%d, "
+                            + "merges=%d, skippedMerges=%d, leaf=%.2f ms, merge=%.2f ms, steals=%d, threadsUsed=%d, "
+                            + "idleWorkers=%d, utilization=%.0f%%, levelTasks=%s, levelMs=%s",
+                    elements, threshold, parallelism, wallNanos / 1e6, tasks, leaves, merges, skippedMerges,
+                    leafNanos / 1e6, mergeNanos / 1e6, steals, threadsUsed, idleWorkers(), 100 * utilization(),
+                    Arrays.toString(levelTasks), Arrays.toString(Arrays.stream(levelNanos).map(n -> n / 1_000_000).toArray()));
+        }
+    }
+
+    /**
+     * JFR event for one ParallelMergeSort call.
+     */
+    @Name("algorithms.MergeSort")
+    @Label("Merge Sort")
+    @Category("Sorting")
+    @Description("One instrumented ParallelMergeSort call")
+    static final class SortEvent extends Event {
+        @Label("Elements")
+        long elements;
+        @Label("Threshold")
+        int threshold;
+        @Label("Parallelism")
+        int parallelism;
+        @Label("Wall Time")
+        @Timespan
+        long wallTime;
+        @Label("Tasks")
+        long tasks;
+        @Label("Leaf Time")
+        @Timespan
+        long leafTime;
+        @Label("Merge Time")
+        @Timespan
+        long mergeTime;
+        @Label("Steals")
+        long steals;
+        @Label("Threads Used")
+        int threadsUsed;
+    }
+
+    /**
+     * JFR event for one leaf sort or merge inside a ParallelMergeSort call.
+     */
+    @Name("algorithms.MergeSortTask")
+    @Label("Merge Sort Task")
+    @Category("Sorting")
+    @Description("Leaf sort or merge step of an instrumented ParallelMergeSort")
+    static final class TaskEvent extends Event {
+        @Label("Depth")
+        int depth;
+        @Label("Elements")
+        int elements;
+        @Label("Kind")
+        String kind;
+
+        transient long startNanos; // not recorded; used for the metrics timing
+    }
+}
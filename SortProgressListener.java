@@ -0,0 +1,18 @@
+package algorithms;
+
+/**
+ * Progress callback for asynchronous sorts.
+ * <p>
+ * Called from the sort's worker threads, possibly concurrently, each time a task
+ * finishes. {@code merged} grows towards {@code total}; calls from different threads
+ * may arrive slightly out of order, but the last call reports merged == total.
+ */
+@FunctionalInterface
+public interface SortProgressListener {
+
+    /**
+     * @param merged elements merged so far
+     * @param total  elements merged by the whole sort
+     */
+    void onProgress(long merged, long total);
+}
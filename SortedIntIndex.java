@@ -0,0 +1,385 @@
+package algorithms;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Immutable index over a multiset of ints that answers membership, rank (lower and upper
+ * bound) and range-count queries, one at a time or in parallel batches.
+ * <p>
+ * {@link #build} sorts a copy of the values with {@link ParallelMergeSort}. The index keeps
+ * them either in sorted order (plain binary search) or in Eytzinger order: the implicit
+ * binary search tree stored breadth-first, node k with children 2k and 2k + 1. The top
+ * levels of the tree share a few cache lines, and the two children of a node are
+ * adjacent, so the CPU can fetch ahead along the path it predicts. The batch methods go
+ * further on this layout: they walk {@value #GROUP} queries down the tree in lockstep,
+ * so the cache misses of those queries overlap instead of following each other. For both
+ * layouts a search returns a rank in the sorted order, so the queries give the same
+ * answers whatever the layout.
+ * <p>
+ * {@link #save} writes the index to a file and {@link #load} memory-maps it again, so a
+ * restarted process can query at once without sorting. File format (little-endian): the
+ * magic number, format version, layout (0 = sorted, 1 = Eytzinger), element count, then
+ * the values in layout order. The file must fit in one mapping (at most about 536 million
+ * values).
+ */
+public final class SortedIntIndex {
+
+    private static final int MAGIC = 0x53494458; // "SIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 4;
+    private static final int BATCH_THRESHOLD = 4096; // queries per task in the batch methods
+    private static final int GROUP = 16; // Eytzinger queries descended in lockstep
+
+    private final IntBuffer data;
+    private final int size;
+    private final boolean eytzinger;
+    private final ForkJoinPool pool;
+
+    private SortedIntIndex(IntBuffer data, boolean eytzinger, ForkJoinPool pool) {
+        this.data = data;
+        this.size = data.limit();
+        this.eytzinger = eytzinger;
+        this.pool = pool;
+    }
+
+    /**
+     * Builds a sorted-layout index with a default ParallelMergeSort. The values are copied.
+     */
+    public static SortedIntIndex build(int[] values) {
+        return build(values, new ParallelMergeSort(), false);
+    }
+
+    /**
+     * Builds an index from a copy of the values.
+     *
+     * @param values    values to index, in any order; duplicates are kept
+     * @param sorter    sorts the copy; its pool also runs the layout step and the batch queries
+     * @param eytzinger true for the Eytzinger layout, false for plain sorted order
+     */
+    public static SortedIntIndex build(int[] values, ParallelMergeSort sorter, boolean eytzinger) {
+        if (values == null) {
+            throw new IllegalArgumentException("Values must not be null");
+        }
+        if (sorter == null) {
+            throw new IllegalArgumentException("Sorter must not be null");
+        }
+        int[] sorted = Arrays.copyOf(values, values.length);
+        sorter.sort(sorted);
+        ForkJoinPool pool = sorter.getPool();
+        if (!eytzinger) {
+            return new SortedIntIndex(IntBuffer.wrap(sorted), false, pool);
+        }
+
+        int n = sorted.length;
+        int[] tree = new int[n];
+        ForkJoinSupport.invoke(pool, new ForkJoinSupport.RangeTask(1, n + 1, 10_000, (from, to) -> {
+            for (int node = from; node < to; node++) {
+                tree[node - 1] = sorted[rankOf(node, n)];
+            }
+        }));
+        return new SortedIntIndex(IntBuffer.wrap(tree), true, pool);
+    }
+
+    /**
+     * Memory-maps an index written by {@link #save}; batch queries run in the common pool.
+     */
+    public static SortedIntIndex load(Path file) throws IOException {
+        return load(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Memory-maps an index written by {@link #save}.
+     *
+     * @param file index file
+     * @param pool pool for the batch queries
+     */
+    public static SortedIntIndex load(Path file, ForkJoinPool pool) throws IOException {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes < HEADER_INTS * Integer.BYTES || bytes > Integer.MAX_VALUE) {
+                throw new IOException("Not a SortedIntIndex file (size " + bytes + "): " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            int magic = mapped.getInt(0);
+            int version = mapped.getInt(4);
+            int layout = mapped.getInt(8);
+            int size = mapped.getInt(12);
+            if (magic != MAGIC || version != VERSION || (layout != 0 && layout != 1) || size < 0
+                    || bytes != (long) (HEADER_INTS + size) * Integer.BYTES) {
+                throw new IOException("Not a SortedIntIndex file or corrupt header: " + file);
+            }
+            IntBuffer data = mapped.position(HEADER_INTS * Integer.BYTES).slice()
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            return new SortedIntIndex(data, layout == 1, pool); // the mapping outlives the channel
+        }
+    }
+
+    /**
+     * Writes the index to file, replacing any existing file.
+     * <p>
+     * The data goes to a temporary file in the same directory, which is then moved over
+     * the target in one atomic rename. This way the file is never seen half written, and
+     * an index loaded from the target itself stays valid: its mapping keeps the old file
+     * alive instead of being truncated under it.
+     */
+    public void save(Path file) throws IOException {
+        long bytes = (long) (HEADER_INTS + size) * Integer.BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("Index too large for one mapping: " + size + " values");
+        }
+        Path dir = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                mapped.putInt(MAGIC).putInt(VERSION).putInt(eytzinger ? 1 : 0).putInt(size);
+                mapped.asIntBuffer().put(data.duplicate().rewind());
+                mapped.force();
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp); // only left over if writing or moving failed
+        }
+    }
+
+    /**
+     * Number of values (duplicates included).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * True if the values are stored in Eytzinger (breadth-first) order.
+     */
+    public boolean isEytzinger() {
+        return eytzinger;
+    }
+
+    /**
+     * True if the value occurs at least once.
+     */
+    public boolean contains(int value) {
+        if (eytzinger) {
+            int node = eytzingerNode(value, false);
+            return node != 0 && data.get(node - 1) == value;
+        }
+        int rank = sortedSearch(value, false);
+        return rank < size && data.get(rank) == value;
+    }
+
+    /**
+     * Number of values smaller than value.
+     */
+    public int lowerBound(int value) {
+        return eytzinger ? eytzingerRank(value, false) : sortedSearch(value, false);
+    }
+
+    /**
+     * Number of values smaller than or equal to value.
+     */
+    public int upperBound(int value) {
+        return eytzinger ? eytzingerRank(value, true) : sortedSearch(value, true);
+    }
+
+    /**
+     * Number of values v with from &lt;= v &lt;= to (0 if from &gt; to).
+     */
+    public int countRange(int from, int to) {
+        return from > to ? 0 : upperBound(to) - lowerBound(from);
+    }
+
+    /**
+     * {@link #contains} for every query, in parallel.
+     */
+    public boolean[] contains(int[] values) {
+        checkQueries(values);
+        boolean[] result = new boolean[values.length];
+        ForkJoinSupport.invoke(pool, new ForkJoinSupport.RangeTask(0, values.length, BATCH_THRESHOLD, (from, to) -> {
+            if (!eytzinger) {
+                for (int i = from; i < to; i++) {
+                    result[i] = contains(values[i]);
+                }
+                return;
+            }
+            int[] nodes = eytzingerNodes(values, from, to, false);
+            for (int i = from; i < to; i++) {
+                int node = nodes[i - from];
+                result[i] = node != 0 && data.get(node - 1) == values[i];
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * {@link #lowerBound} for every query, in parallel.
+     */
+    public int[] lowerBounds(int[] values) {
+        checkQueries(values);
+        int[] result = new int[values.length];
+        ForkJoinSupport.invoke(pool, new ForkJoinSupport.RangeTask(0, values.length, BATCH_THRESHOLD, (from, to) -> {
+            if (!eytzinger) {
+                for (int i = from; i < to; i++) {
+                    result[i] = sortedSearch(values[i], false);
+                }
+                return;
+            }
+            int[] nodes = eytzingerNodes(values, from, to, false);
+            for (int i = from; i < to; i++) {
+                result[i] = nodeRank(nodes[i - from]);
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * {@link #countRange} for every pair (from[i], to[i]), in parallel.
+     */
+    public int[] countRanges(int[] from, int[] to) {
+        checkQueries(from);
+        checkQueries(to);
+        if (from.length != to.length) {
+            throw new IllegalArgumentException("Range bounds differ in length: " + from.length + " and " + to.length);
+        }
+        int[] result = new int[from.length];
+        ForkJoinSupport.invoke(pool, new ForkJoinSupport.RangeTask(0, from.length, BATCH_THRESHOLD, (lo, hi) -> {
+            if (!eytzinger) {
+                for (int i = lo; i < hi; i++) {
+                    result[i] = countRange(from[i], to[i]);
+                }
+                return;
+            }
+            int[] lower = eytzingerNodes(from, lo, hi, false);
+            int[] upper = eytzingerNodes(to, lo, hi, true);
+            for (int i = lo; i < hi; i++) {
+                result[i] = from[i] > to[i] ? 0 : nodeRank(upper[i - lo]) - nodeRank(lower[i - lo]);
+            }
+        }));
+        return result;
+    }
+
+    private static void checkQueries(int[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Queries must not be null");
+        }
+    }
+
+    /**
+     * Binary search over the sorted layout: number of values below value (or not above it).
+     */
+    private int sortedSearch(int value, boolean inclusive) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int v = data.get(mid);
+            if (v < value || (inclusive && v == value)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Eytzinger search: descends from the root (node 1) to a missing child, going right
+     * whenever the node is below value (or not above it). The path taken spells the
+     * answer: dropping the trailing right turns and the last left turn leaves the node
+     * where the search last went left, i.e. the first value not below the target (0 if
+     * every value is below it).
+     * <p>
+     * The descent branches on purpose: a conditional move would make every load wait for
+     * the previous comparison, while a predicted branch lets the next load start early.
+     */
+    private int eytzingerNode(int value, boolean inclusive) {
+        int node = 1;
+        while (node <= size) {
+            int v = data.get(node - 1);
+            if (v < value || (inclusive && v == value)) {
+                node = 2 * node + 1;
+            } else {
+                node = 2 * node;
+            }
+        }
+        return lastLeftTurn(node);
+    }
+
+    /**
+     * {@link #eytzingerNode} for values[from..to), descending {@value #GROUP} queries at a
+     * time in lockstep. The loads of one step are independent, so their misses overlap.
+     */
+    private int[] eytzingerNodes(int[] values, int from, int to, boolean inclusive) {
+        int[] nodes = new int[to - from];
+        for (int base = 0; base < nodes.length; base += GROUP) {
+            int end = Math.min(nodes.length, base + GROUP);
+            Arrays.fill(nodes, base, end, 1);
+            // value v goes right if v < query, or v <= query (v < query + 1) when inclusive
+            int step = inclusive ? 1 : 0;
+            boolean active = true;
+            while (active) {
+                active = false;
+                for (int g = base; g < end; g++) {
+                    int node = nodes[g];
+                    if (node <= size) {
+                        long query = (long) values[from + g] + step;
+                        nodes[g] = 2 * node + (data.get(node - 1) < query ? 1 : 0);
+                        active = true;
+                    }
+                }
+            }
+            for (int g = base; g < end; g++) {
+                nodes[g] = lastLeftTurn(nodes[g]);
+            }
+        }
+        return nodes;
+    }
+
+    private static int lastLeftTurn(int node) {
+        return node >>> (Integer.numberOfTrailingZeros(~node) + 1);
+    }
+
+    private int eytzingerRank(int value, boolean inclusive) {
+        return nodeRank(eytzingerNode(value, inclusive));
+    }
+
+    /**
+     * Rank of the value at a search result node; node 0 (every value below) ranks last.
+     */
+    private int nodeRank(int node) {
+        return node == 0 ? size : rankOf(node, size);
+    }
+
+    /**
+     * Sorted rank (0-based) of Eytzinger node k (1-based) in a tree of n nodes.
+     * <p>
+     * In a perfect tree of height h, a node at depth d and position j within its level has
+     * in-order index p = (2j + 1) * 2^(h - d) - 1. The real tree lacks the last-level slots
+     * from position `last` on (in-order indices 2 * last, 2 * last + 2, ...), so the rank is
+     * p minus the number of those slots before p.
+     */
+    static int rankOf(int k, int n) {
+        int height = 31 - Integer.numberOfLeadingZeros(n); // depth of the last level
+        int depth = 31 - Integer.numberOfLeadingZeros(k);
+        long j = k - (1L << depth);
+        long p = ((2 * j + 1) << (height - depth)) - 1;
+        long last = n - ((1L << height) - 1); // nodes on the last level
+        long missingBefore = Math.max(0, (p + 1) / 2 - last);
+        return (int) (p - missingBefore);
+    }
+}
@@ -0,0 +1,327 @@
+package algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Union, intersection and difference of sorted int[] inputs using Java's Fork/Join
+ * framework.
+ * <p>
+ * The inputs are treated as sets: they must be sorted in ascending order and may contain
+ * duplicates, and every result is sorted and distinct. This way the ops compose with
+ * {@link ParallelMergeSort#sortDistinct(int[])} and with each other.
+ * <p>
+ * Large inputs are cut into pieces by co-ranking: for evenly spaced output ranks r, a
+ * binary search finds how many elements each input contributes to the first r elements
+ * of their merge, and the cut is then moved back to the first copy of the next value, so
+ * equal values never straddle two pieces. Each piece runs the sequential two-pointer
+ * kernel into a scratch buffer at the largest offset it could need; a prefix sum over
+ * the piece counts then places the pieces back to back in the result, also in parallel.
+ */
+public class SortedSetOps {
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a SortedSetOps with a default threshold.
+     */
+    public SortedSetOps() {
+        this(10_000);
+    }
+
+    /**
+     * Creates a SortedSetOps with a custom threshold.
+     *
+     * @param threshold minimum piece size (both inputs together) handled by one task
+     */
+    public SortedSetOps(int threshold) {
+        this(threshold, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a SortedSetOps that runs in the given pool.
+     *
+     * @param threshold minimum piece size (both inputs together) handled by one task
+     * @param pool      pool to run the tasks in
+     */
+    public SortedSetOps(int threshold, ForkJoinPool pool) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool must not be null");
+        }
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the distinct values that are in a or in b, sorted.
+     */
+    public int[] union(int[] a, int[] b) {
+        return apply(Op.UNION, a, b);
+    }
+
+    /**
+     * Returns the distinct values that are in both a and b, sorted.
+     */
+    public int[] intersection(int[] a, int[] b) {
+        return apply(Op.INTERSECTION, a, b);
+    }
+
+    /**
+     * Returns the distinct values of a that are not in b, sorted.
+     */
+    public int[] difference(int[] a, int[] b) {
+        return apply(Op.DIFFERENCE, a, b);
+    }
+
+    private int[] apply(Op op, int[] a, int[] b) {
+        if (a == null || b == null) {
+            throw new IllegalArgumentException("Inputs must not be null");
+        }
+        long bound = op.bound(a.length, b.length);
+        if (bound > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Result size does not fit in an array: " + bound);
+        }
+        int[] scratch = new int[(int) bound];
+        Pieces pieces = combine(pool, threshold, op, a, 0, a.length, b, 0, b.length, scratch, 0);
+        int[] result = new int[pieces.total];
+        pieces.copyTo(pool, threshold, result, 0);
+        return result;
+    }
+
+    /**
+     * A set operation: its sequential kernel and the most output it can produce.
+     */
+    enum Op {
+        UNION {
+            @Override
+            long bound(int aLength, int bLength) {
+                return (long) aLength + bLength;
+            }
+
+            @Override
+            int apply(int[] a, int i, int aEnd, int[] b, int j, int bEnd, int[] dst, int k) {
+                int start = k;
+                if (i == aEnd && j == bEnd) {
+                    return 0;
+                }
+                // plain merge that skips outputs equal to the previous one
+                int last = (i < aEnd && (j == bEnd || a[i] <= b[j]) ? a[i] : b[j]) - 1; // != first output
+                while (i < aEnd && j < bEnd) {
+                    int value = a[i] <= b[j] ? a[i++] : b[j++];
+                    if (value != last) {
+                        dst[k++] = value;
+                        last = value;
+                    }
+                }
+                for (; i < aEnd; i++) {
+                    if (a[i] != last) {
+                        dst[k++] = a[i];
+                        last = a[i];
+                    }
+                }
+                for (; j < bEnd; j++) {
+                    if (b[j] != last) {
+                        dst[k++] = b[j];
+                        last = b[j];
+                    }
+                }
+                return k - start;
+            }
+        },
+        INTERSECTION {
+            @Override
+            long bound(int aLength, int bLength) {
+                return Math.min(aLength, bLength);
+            }
+
+            @Override
+            int apply(int[] a, int i, int aEnd, int[] b, int j, int bEnd, int[] dst, int k) {
+                int start = k;
+                while (i < aEnd && j < bEnd) {
+                    if (a[i] < b[j]) {
+                        i++;
+                    } else if (a[i] > b[j]) {
+                        j++;
+                    } else {
+                        if (k == start || dst[k - 1] != a[i]) {
+                            dst[k++] = a[i];
+                        }
+                        i++;
+                        j++;
+                    }
+                }
+                return k - start;
+            }
+        },
+        DIFFERENCE {
+            @Override
+            long bound(int aLength, int bLength) {
+                return aLength;
+            }
+
+            @Override
+            int apply(int[] a, int i, int aEnd, int[] b, int j, int bEnd, int[] dst, int k) {
+                int start = k;
+                for (; i < aEnd; i++) {
+                    int value = a[i];
+                    while (j < bEnd && b[j] < value) {
+                        j++;
+                    }
+                    if ((j == bEnd || b[j] != value) && (k == start || dst[k - 1] != value)) {
+                        dst[k++] = value;
+                    }
+                }
+                return k - start;
+            }
+        },
+
+        /**
+         * Union of inputs that are each free of duplicates, as in the merges of
+         * {@link ParallelMergeSort#sortDistinct(int[])}. A value can then repeat only as
+         * a[i] == b[j], so both sides advance past it at once and the loop needs no
+         * data-dependent branch.
+         */
+        DISTINCT_UNION {
+            @Override
+            long bound(int aLength, int bLength) {
+                return (long) aLength + bLength;
+            }
+
+            @Override
+            int apply(int[] a, int i, int aEnd, int[] b, int j, int bEnd, int[] dst, int k) {
+                int start = k;
+                while (i < aEnd && j < bEnd) {
+                    int x = a[i];
+                    int y = b[j];
+                    dst[k++] = Math.min(x, y);
+                    i += x <= y ? 1 : 0;
+                    j += y <= x ? 1 : 0;
+                }
+                System.arraycopy(a, i, dst, k, aEnd - i);
+                k += aEnd - i;
+                System.arraycopy(b, j, dst, k, bEnd - j);
+                k += bEnd - j;
+                return k - start;
+            }
+        };
+
+        abstract long bound(int aLength, int bLength);
+
+        /**
+         * Writes op(a[i..aEnd), b[j..bEnd)) to dst starting at k and returns its length.
+         */
+        abstract int apply(int[] a, int i, int aEnd, int[] b, int j, int bEnd, int[] dst, int k);
+    }
+
+    /**
+     * Runs op over a[aFrom..aTo) and b[bFrom..bTo) in co-ranked pieces, each written to
+     * scratch at scratchFrom plus the largest output of the pieces before it. The inputs
+     * may be ranges of the same array, but must not overlap the scratch range.
+     */
+    static Pieces combine(ForkJoinPool pool, int threshold, Op op, int[] a, int aFrom, int aTo,
+                          int[] b, int bFrom, int bTo, int[] scratch, int scratchFrom) {
+        int total = (aTo - aFrom) + (bTo - bFrom);
+        int maxPieces = Math.max(1, pool.getParallelism() * 4);
+        int count = Math.max(1, Math.min(maxPieces, total / threshold));
+
+        int[] aCut = new int[count + 1];
+        int[] bCut = new int[count + 1];
+        aCut[0] = aFrom;
+        bCut[0] = bFrom;
+        aCut[count] = aTo;
+        bCut[count] = bTo;
+        ForkJoinSupport.invoke(pool, new ForkJoinSupport.RangeTask(1, count, 1, (from, to) -> {
+            for (int p = from; p < to; p++) {
+                int i = coRank(a, aFrom, aTo, b, bFrom, bTo, (int) ((long) total * p / count));
+                int j = (int) ((long) total * p / count) - i;
+                aCut[p] = aFrom + i;
+                bCut[p] = bFrom + j;
+                // move the cut to the first copy of the next value
+                int next;
+                if (aFrom + i < aTo && (bFrom + j == bTo || a[aFrom + i] <= b[bFrom + j])) {
+                    next = a[aFrom + i];
+                } else if (bFrom + j < bTo) {
+                    next = b[bFrom + j];
+                } else {
+                    continue;
+                }
+                aCut[p] = ParallelMergeSort.MergeTask.lowerBound(a, aFrom, aFrom + i, next);
+                bCut[p] = ParallelMergeSort.MergeTask.lowerBound(b, bFrom, bFrom + j, next);
+            }
+        }));
+
+        int[] start = new int[count];
+        int[] length = new int[count];
+        int offset = scratchFrom;
+        for (int p = 0; p < count; p++) {
+            start[p] = offset;
+            // fits in an int: the offsets never exceed the scratch length
+            offset += (int) op.bound(aCut[p + 1] - aCut[p], bCut[p + 1] - bCut[p]);
+        }
+        ForkJoinSupport.invoke(pool, new ForkJoinSupport.RangeTask(0, count, 1, (from, to) -> {
+            for (int p = from; p < to; p++) {
+                length[p] = op.apply(a, aCut[p], aCut[p + 1], b, bCut[p], bCut[p + 1], scratch, start[p]);
+            }
+        }));
+        return new Pieces(scratch, start, length);
+    }
+
+    /**
+     * Merge-path co-ranking: the number of elements of a[aFrom..aTo) among the first
+     * rank elements of the stable merge of the two ranges (ties go to a).
+     */
+    static int coRank(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int rank) {
+        int lo = Math.max(0, rank - (bTo - bFrom));
+        int hi = Math.min(rank, aTo - aFrom);
+        while (lo < hi) {
+            int i = (lo + hi) >>> 1; // candidate count from a; rank - i from b
+            if (a[aFrom + i] <= b[bFrom + rank - i - 1]) {
+                lo = i + 1; // a[i] precedes b's last taken element, so it is taken too
+            } else {
+                hi = i;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Output of {@link #combine}: piece p is scratch[start[p] .. start[p] + length[p]).
+     */
+    static final class Pieces {
+        final int[] scratch;
+        final int[] start;
+        final int[] length;
+        final int total;
+
+        Pieces(int[] scratch, int[] start, int[] length) {
+            this.scratch = scratch;
+            this.start = start;
+            this.length = length;
+            int sum = 0;
+            for (int count : length) {
+                sum += count;
+            }
+            this.total = sum;
+        }
+
+        /**
+         * Copies the pieces back to back into dst starting at dstFrom (which may be the
+         * scratch array only if the ranges cannot overlap).
+         */
+        void copyTo(ForkJoinPool pool, int threshold, int[] dst, int dstFrom) {
+            int[] offset = new int[length.length];
+            for (int p = 0, pos = dstFrom; p < length.length; p++) {
+                offset[p] = pos;
+                pos += length[p];
+            }
+            ForkJoinSupport.invoke(pool, new ForkJoinSupport.RangeTask(0, length.length, 1, (from, to) -> {
+                for (int p = from; p < to; p++) {
+                    System.arraycopy(scratch, start[p], dst, offset[p], length[p]);
+                }
+            }));
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Incremental sorter for data that arrives in batches: every batch is sorted in the
+ * background as soon as it is added, and sorted output over everything added so far is
+ * available at any time.
+ * <p>
+ * Sorted batches become runs in a log-structured hierarchy. Level 0 holds the sorted
+ * batches; whenever a level collects fanIn runs, they are merged in the background (with
+ * a {@link ParallelKWayMerge}) into one run on the next level. Every element is therefore
+ * merged about log_fanIn(batches) times, and the number of live runs stays logarithmic
+ * in the number of batches.
+ * <p>
+ * {@link #iterator()} waits only for batches that are still being sorted, then streams a
+ * loser-tree merge over a snapshot of the current runs. Runs are never modified once
+ * built, so background merges can go on while an iterator is in use, and the merged data
+ * is never sorted again. {@link #toArray()} does the same merge in parallel into a new array.
+ * <p>
+ * All methods are thread-safe. Background failures (for example an OutOfMemoryError while
+ * merging) are rethrown as IllegalStateException by the next call that reads the state.
+ */
+public class StreamingSorter implements AutoCloseable {
+
+    private final ParallelMergeSort sorter;
+    private final ParallelKWayMerge merger;
+    private final ForkJoinPool pool;
+    private final int fanIn;
+
+    // guarded by this
+    private final List<List<int[]>> levels = new ArrayList<>(); // finished runs per level
+    private final List<int[]> merging = new ArrayList<>(); // inputs of running merges, still readable
+    private int pendingSorts;
+    private int pendingMerges;
+    private long size;
+    private boolean closed;
+    private Throwable failure;
+
+    /**
+     * Creates a StreamingSorter that sorts batches with a default ParallelMergeSort in the
+     * common pool and merges four runs at a time.
+     */
+    public StreamingSorter() {
+        this(new ParallelMergeSort(), 4);
+    }
+
+    /**
+     * Creates a StreamingSorter that sorts batches with the given sorter and runs its
+     * merges in the sorter's pool.
+     *
+     * @param sorter sorts each batch; its pool also runs the background merges
+     * @param fanIn  number of runs on one level that are merged into one run on the next
+     */
+    public StreamingSorter(ParallelMergeSort sorter, int fanIn) {
+        if (sorter == null) {
+            throw new IllegalArgumentException("Sorter must not be null");
+        }
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("Fan-in must be at least 2");
+        }
+        this.sorter = sorter;
+        this.pool = sorter.getPool();
+        this.merger = new ParallelKWayMerge(10_000, pool);
+        this.fanIn = fanIn;
+    }
+
+    /**
+     * Adds a batch. The batch is copied, so the caller may reuse the array as soon as
+     * this method returns; sorting happens in the background.
+     *
+     * @param batch values to add, in any order
+     */
+    public void add(int[] batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch must not be null");
+        }
+        add(batch, 0, batch.length);
+    }
+
+    /**
+     * Adds batch[from..to) (copied, sorted in the background).
+     */
+    public void add(int[] batch, int from, int to) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch must not be null");
+        }
+        if (from < 0 || to > batch.length || from > to) {
+            throw new IllegalArgumentException("Invalid range [" + from + ", " + to + ") for length " + batch.length);
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Sorter is closed");
+            }
+            checkFailure();
+            if (from == to) {
+                return;
+            }
+            size += to - from;
+            pendingSorts++;
+        }
+        int[] run = Arrays.copyOfRange(batch, from, to);
+        sorter.sortAsync(run).whenComplete((sorted, error) -> sortDone(sorted, error));
+    }
+
+    private synchronized void sortDone(int[] run, Throwable error) {
+        pendingSorts--;
+        if (error != null) {
+            recordFailure(error);
+        } else {
+            addRun(0, run);
+        }
+        notifyAll();
+    }
+
+    private synchronized void mergeDone(int level, List<int[]> inputs, int[] run, Throwable error) {
+        pendingMerges--;
+        for (int[] input : inputs) {
+            merging.remove(input);
+        }
+        if (error != null) {
+            // keep the data: the inputs go back unmerged
+            recordFailure(error);
+            level(level - 1).addAll(inputs);
+        } else {
+            addRun(level, run);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Adds a finished run and starts a merge if its level is full (lock held).
+     */
+    private void addRun(int level, int[] run) {
+        List<int[]> runs = level(level);
+        runs.add(run);
+        if (runs.size() < fanIn || failure != null) {
+            return;
+        }
+        List<int[]> inputs = new ArrayList<>(runs.subList(0, fanIn));
+        runs.subList(0, fanIn).clear();
+        merging.addAll(inputs);
+        pendingMerges++;
+        CompletableFuture.supplyAsync(() -> merger.merge(inputs.toArray(new int[0][])), pool)
+                .whenComplete((merged, error) -> mergeDone(level + 1, inputs, merged, error));
+    }
+
+    private List<int[]> level(int level) {
+        while (levels.size() <= level) {
+            levels.add(new ArrayList<>());
+        }
+        return levels.get(level);
+    }
+
+    private void recordFailure(Throwable error) {
+        if (failure == null) {
+            failure = error;
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Background sort failed", failure);
+        }
+    }
+
+    /**
+     * Returns a sorted iterator over every value added before this call. Waits for the
+     * batches that are still being sorted, but not for background merges.
+     * <p>
+     * The iterator is a snapshot: later additions do not show up in it.
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        int[][] runs = snapshot();
+        if (runs.length == 0) {
+            return new RunIterator(null);
+        }
+        int[] pos = new int[runs.length];
+        int[] end = new int[runs.length];
+        for (int i = 0; i < runs.length; i++) {
+            end[i] = runs[i].length;
+        }
+        return new RunIterator(new ParallelKWayMerge.LoserTree(runs, pos, end, runs.length));
+    }
+
+    /**
+     * Returns every value added before this call, sorted, in a new array. The runs are
+     * merged in parallel and stay as they are.
+     */
+    public int[] toArray() {
+        return merger.merge(snapshot());
+    }
+
+    private synchronized int[][] snapshot() {
+        awaitWhile(() -> pendingSorts > 0);
+        checkFailure();
+        List<int[]> runs = new ArrayList<>(merging);
+        for (List<int[]> level : levels) {
+            runs.addAll(level);
+        }
+        return runs.toArray(new int[0][]);
+    }
+
+    /**
+     * Blocks until every added batch is sorted and no background merge is running.
+     */
+    public synchronized void awaitIdle() {
+        awaitWhile(() -> pendingSorts > 0 || pendingMerges > 0);
+        checkFailure();
+    }
+
+    /**
+     * Waits on this object's monitor until the condition is false (lock held). Interrupts
+     * do not abort the wait; the interrupt status is restored afterwards.
+     */
+    private void awaitWhile(BooleanSupplier condition) {
+        boolean interrupted = false;
+        while (condition.getAsBoolean()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Number of values added so far.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Number of sorted runs currently held, including the inputs of running merges.
+     * Batches that are still being sorted are not counted.
+     */
+    public synchronized int runCount() {
+        int count = merging.size();
+        for (List<int[]> level : levels) {
+            count += level.size();
+        }
+        return count;
+    }
+
+    /**
+     * Stops accepting batches and waits for the background work to finish. The sorted
+     * data stays readable. Does not close the sorter passed to the constructor.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        awaitWhile(() -> pendingSorts > 0 || pendingMerges > 0);
+    }
+
+    /**
+     * Streams a loser-tree merge over a fixed set of runs.
+     */
+    private static final class RunIterator implements PrimitiveIterator.OfInt {
+        private final ParallelKWayMerge.LoserTree tree; // null = no runs
+
+        RunIterator(ParallelKWayMerge.LoserTree tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return tree != null && tree.hasNext();
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return tree.next();
+        }
+    }
+}
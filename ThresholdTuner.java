@@ -0,0 +1,305 @@
+package algorithms;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calibrates the sequential cutoff of the Fork/Join merge sorts for the current machine.
+ * <p>
+ * Calibration measures two things: the cost of forking and joining one task, and
+ * the cost of sorting a leaf sequentially for each element type. The minimum leaf
+ * size is the smallest power of two whose sequential sort costs at least
+ * {@link #OVERHEAD_FACTOR} times the task overhead, so splitting below it no longer pays.
+ * Both costs are measured per worker, in a private one-worker pool, so the minimum leaf
+ * size does not depend on the pool that later runs the sorts; that pool only enters
+ * through the parallelism passed to {@link #thresholdFor(int, int, ElementType)}.
+ * <p>
+ * Per call, {@link #thresholdFor(int, int, ElementType)} uses that minimum, or the
+ * array length divided into {@link #TASKS_PER_WORKER} pieces per worker, whichever is
+ * larger. On a single-worker pool this means the whole array is sorted sequentially.
+ * <p>
+ * Calibration runs lazily on first use. The results are saved to a small properties
+ * file and reused on later runs. A profile recorded with a different core count is
+ * ignored and calibration runs again. To fix the threshold manually, pass it to the
+ * sorter's constructor instead of using the tuner.
+ * <p>
+ * {@link ParallelMergeSort#autoTuned()} uses the INT and OBJECT costs,
+ * {@link ParallelLongMergeSort#autoTuned()} the LONG cost.
+ */
+public class ThresholdTuner {
+
+    /**
+     * Element types with separately calibrated leaf costs.
+     */
+    public enum ElementType {
+        INT, LONG, OBJECT
+    }
+
+    static final int OVERHEAD_FACTOR = 50;
+    static final int TASKS_PER_WORKER = 4;
+
+    private static final int MIN_LEAF = 256;
+    private static final int MAX_LEAF = 1 << 20;
+    private static final int CALIBRATION_SIZE = 1 << 15;
+    private static final int CALIBRATION_TASKS = 1 << 14;
+
+    private static ThresholdTuner defaultTuner;
+
+    private final Path profile;
+    // null until loaded or calibrated; a published map is never modified, so reads need no lock
+    private volatile Map<ElementType, Integer> minLeaf;
+    private boolean loaded; // guarded by this
+    private volatile boolean calibrated;
+
+    /**
+     * Creates a tuner that keeps its profile in the given file.
+     */
+    public ThresholdTuner(Path profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Returns the shared tuner. Its profile lives in ~/.parallel-merge-sort/threshold-profile.properties,
+     * or at the path given by the system property {@code parallelmergesort.profile}.
+     */
+    public static synchronized ThresholdTuner defaultTuner() {
+        if (defaultTuner == null) {
+            String override = System.getProperty("parallelmergesort.profile");
+            Path path = override != null
+                    ? Path.of(override)
+                    : Path.of(System.getProperty("user.home"), ".parallel-merge-sort", "threshold-profile.properties");
+            defaultTuner = new ThresholdTuner(path);
+        }
+        return defaultTuner;
+    }
+
+    /**
+     * Sequential cutoff for sorting n elements of the given type on a pool with the given parallelism.
+     */
+    public int thresholdFor(int n, int parallelism, ElementType type) {
+        int perTask = (int) Math.min(Integer.MAX_VALUE,
+                ((long) n + (long) parallelism * TASKS_PER_WORKER - 1) / ((long) parallelism * TASKS_PER_WORKER));
+        if (parallelism <= 1) {
+            perTask = n;
+        }
+        return Math.max(1, Math.max(minLeafSize(type), perTask));
+    }
+
+    /**
+     * Calibrated minimum leaf size for the element type (calibrating on first use). Only
+     * the first calls lock: later calls read the published sizes without synchronizing.
+     */
+    public int minLeafSize(ElementType type) {
+        Map<ElementType, Integer> leaves = minLeaf;
+        if (leaves == null) {
+            synchronized (this) {
+                if (minLeaf == null && !loaded) {
+                    loaded = true;
+                    minLeaf = load();
+                }
+                if (minLeaf == null) {
+                    calibrate();
+                }
+                leaves = minLeaf;
+            }
+        }
+        return leaves.get(type);
+    }
+
+    /**
+     * True if this tuner measured the machine, false if it only read a saved profile.
+     */
+    public boolean hasCalibrated() {
+        return calibrated;
+    }
+
+    /**
+     * Measures task overhead and leaf costs, then saves the profile.
+     */
+    public synchronized void calibrate() {
+        // a private one-worker pool: the costs are per worker, whatever pool sorts later,
+        // and the sorting pool's workers and queues stay out of the measurement
+        ForkJoinPool calibrationPool = new ForkJoinPool(1);
+        double taskOverheadNs;
+        Map<ElementType, Integer> leaves = new EnumMap<>(ElementType.class);
+        try {
+            taskOverheadNs = measureTaskOverheadNs(calibrationPool);
+            for (ElementType type : ElementType.values()) {
+                double nsPerElementLog = measureLeafNsPerElementLog(type, calibrationPool);
+                int leaf = MIN_LEAF;
+                while (leaf < MAX_LEAF && nsPerElementLog * leaf * log2(leaf) < OVERHEAD_FACTOR * taskOverheadNs) {
+                    leaf <<= 1;
+                }
+                leaves.put(type, leaf);
+            }
+        } finally {
+            calibrationPool.shutdown();
+        }
+        minLeaf = leaves;
+        calibrated = true;
+        save(leaves, taskOverheadNs);
+    }
+
+    /**
+     * Reads the profile; null if it is missing, unreadable or from another machine shape.
+     */
+    private Map<ElementType, Integer> load() {
+        if (profile == null || !Files.isRegularFile(profile)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(profile)) {
+            properties.load(in);
+        } catch (IOException e) {
+            return null; // unreadable profile: calibrate again
+        }
+        if (!Integer.toString(Runtime.getRuntime().availableProcessors()).equals(properties.getProperty("cores"))) {
+            return null; // different machine shape
+        }
+        Map<ElementType, Integer> leaves = new EnumMap<>(ElementType.class);
+        for (ElementType type : ElementType.values()) {
+            String value = properties.getProperty(key(type));
+            if (value == null) {
+                return null;
+            }
+            try {
+                leaves.put(type, Math.max(1, Integer.parseInt(value.trim())));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return leaves;
+    }
+
+    private void save(Map<ElementType, Integer> leaves, double taskOverheadNs) {
+        if (profile == null) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("cores", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        properties.setProperty("taskOverheadNs", String.format("%.1f", taskOverheadNs));
+        for (Map.Entry<ElementType, Integer> entry : leaves.entrySet()) {
+            properties.setProperty(key(entry.getKey()), Integer.toString(entry.getValue()));
+        }
+        // write a temp file and rename it into place, so a concurrent load or a crash
+        // never sees a half-written profile
+        Path temp = null;
+        try {
+            Path dir = profile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            temp = Files.createTempFile(dir, profile.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, "ParallelMergeSort threshold profile (edit minLeaf values to override)");
+            }
+            Files.move(temp, profile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // keep the in-memory calibration; the next run calibrates again
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp); // only left over if writing or moving failed
+                } catch (IOException e) {
+                    // nothing more to do
+                }
+            }
+        }
+    }
+
+    private static String key(ElementType type) {
+        return type.name().toLowerCase() + ".minLeaf";
+    }
+
+    /**
+     * CPU time for one worker to fork and join one empty task, in nanoseconds (best of
+     * several runs on the given one-worker pool).
+     */
+    private static double measureTaskOverheadNs(ForkJoinPool pool) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < 10; r++) {
+            long start = System.nanoTime();
+            pool.invoke(new EmptyTask(CALIBRATION_TASKS));
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        // a tree with L leaves has 2L - 1 tasks, all run by the pool's single worker
+        return best / (2.0 * CALIBRATION_TASKS - 1);
+    }
+
+    /**
+     * Sequential sort cost per element per merge level, in nanoseconds (best of several runs).
+     */
+    private static double measureLeafNsPerElementLog(ElementType type, ForkJoinPool pool) {
+        Random random = new Random(1);
+        int[] ints = new int[CALIBRATION_SIZE];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = random.nextInt();
+        }
+        ParallelMergeSort intSorter = new ParallelMergeSort(Integer.MAX_VALUE, pool);
+        SequentialLongMergeSort longSorter = new SequentialLongMergeSort(); // the long sort's leaf
+
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < 10; r++) {
+            long start;
+            switch (type) {
+                case LONG: {
+                    long[] copy = new long[ints.length];
+                    for (int i = 0; i < ints.length; i++) {
+                        copy[i] = ints[i];
+                    }
+                    start = System.nanoTime();
+                    longSorter.sort(copy);
+                    break;
+                }
+                case OBJECT: {
+                    Integer[] copy = new Integer[ints.length];
+                    for (int i = 0; i < ints.length; i++) {
+                        copy[i] = ints[i];
+                    }
+                    start = System.nanoTime();
+                    intSorter.sort(copy, Comparator.naturalOrder());
+                    break;
+                }
+                default: {
+                    int[] copy = ints.clone();
+                    start = System.nanoTime();
+                    intSorter.sort(copy);
+                    break;
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / (CALIBRATION_SIZE * log2(CALIBRATION_SIZE));
+    }
+
+    private static double log2(int n) {
+        return Math.log(n) / Math.log(2);
+    }
+
+    /**
+     * Binary tree of tasks that do nothing, for measuring fork/join overhead.
+     */
+    private static class EmptyTask extends RecursiveAction {
+        private final int leaves;
+
+        EmptyTask(int leaves) {
+            this.leaves = leaves;
+        }
+
+        @Override
+        protected void compute() {
+            if (leaves > 1) {
+                invokeAll(new EmptyTask(leaves / 2), new EmptyTask(leaves - leaves / 2));
+            }
+        }
+    }
+}
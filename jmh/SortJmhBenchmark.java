@@ -0,0 +1,147 @@
+package algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks for every SortAlgorithm in the project.
+ * <p>
+ * Each invocation sorts a fresh copy of a seeded input from {@link DataGenerators}, so
+ * all algorithms and runs see the same data. The copy is made in a per-invocation setup
+ * with System.arraycopy into a preallocated array, so neither its time nor its
+ * allocation is measured. Throughput and average time are reported; run with
+ * {@code -prof gc} (as {@link #main} does) for the GC allocation rate.
+ * <p>
+ * The {@code threads} parameter sets the parallelism of the common Fork/Join pool in the
+ * forked JVM; 0 keeps the JVM default. {@code mergeKernel} selects the inner merge loop
+ * of the merge sorts ({@link MergeKernels#forName}); the forks load jdk.incubator.vector so
+ * the "vector" kernel is used when the jar was built with {@code -Pvector}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class SortJmhBenchmark {
+
+    @Param({"SequentialMergeSort", "ParallelMergeSort", "ParallelMergeSort-PM", "PingPongMergeSort",
+            "ParallelPingPong", "NaturalMergeSort", "ParallelRadixSort", "ParallelSampleSort", "Arrays.sort",
+            "Arrays.parallelSort"})
+    public String algorithm;
+
+    // Larger sizes via -p size=...: 10000000 runs in a 512 MB heap; 100000000 keeps input, working
+    // copy and merge buffer (about 1.2 GB) alive, so add -jvmArgsAppend -Xmx2g
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"Random", "Reverse", "Sorted", "Nearly sorted", "Zipf", "Duplicates", "Few unique", "Organ pipe", "Sawtooth"})
+    public String pattern;
+
+    // 0 = auto-tuned (ThresholdTuner) for ParallelMergeSort, default 10_000 elsewhere
+    @Param({"10000"})
+    public int threshold;
+
+    // Hybrid leaf block size for the merge sorts that support it (1 = pure merge sort)
+    @Param({"1"})
+    public int insertionSortSize;
+
+    // scalar, branchless or vector (ParallelMergeSort / ParallelMergeSort-PM)
+    @Param({"scalar"})
+    public String mergeKernel;
+
+    @Param({"0"})
+    public int threads;
+
+    @Param({"42"})
+    public long seed;
+
+    private SortAlgorithm sorter;
+    private int[] original;
+    private int[] work;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        if (threads > 0) {
+            // Must happen before anything touches the common pool in this fork
+            System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", Integer.toString(threads));
+            if (ForkJoinPool.getCommonPoolParallelism() != threads) {
+                throw new IllegalStateException("Common pool was initialized before threads=" + threads + " could be applied");
+            }
+        }
+        sorter = createAlgorithm(algorithm, threshold, insertionSortSize, MergeKernels.forName(mergeKernel));
+        original = DataGenerators.generate(pattern, size, seed);
+        work = new int[size];
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        System.arraycopy(original, 0, work, 0, size);
+    }
+
+    @Benchmark
+    public void sort(Blackhole blackhole) {
+        sorter.sort(work);
+        blackhole.consume(work);
+    }
+
+    static SortAlgorithm createAlgorithm(String name, int requestedThreshold, int insertionSortSize,
+                                         MergeKernel mergeKernel) {
+        int threshold = requestedThreshold > 0 ? requestedThreshold : 10_000;
+        switch (name) {
+            case "SequentialMergeSort":
+                return new SequentialMergeSort(null, insertionSortSize);
+            case "ParallelMergeSort":
+                return requestedThreshold == 0 ? ParallelMergeSort.autoTuned()
+                        : new ParallelMergeSort(threshold, false, null, insertionSortSize, mergeKernel);
+            case "ParallelMergeSort-PM":
+                return new ParallelMergeSort(threshold, true, null, insertionSortSize, mergeKernel);
+            case "PingPongMergeSort":
+                return new PingPongMergeSort();
+            case "ParallelPingPong":
+                return new ParallelPingPongMergeSort(threshold);
+            case "NaturalMergeSort":
+                return new NaturalMergeSort(threshold);
+            case "ParallelRadixSort":
+                return new ParallelRadixSort(threshold);
+            case "ParallelSampleSort":
+                return new ParallelSampleSort(threshold);
+            case "Arrays.sort":
+                return new SortBenchmark.ArraysSortAlgorithm();
+            case "Arrays.parallelSort":
+                return new SortBenchmark.ArraysParallelSortAlgorithm();
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + name);
+        }
+    }
+
+    /**
+     * Runs the whole suite with the GC profiler attached.
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SortJmhBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,134 @@
+package algorithms;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link MergeKernel} built on a bitonic merge network over {@link IntVector}.
+ * <p>
+ * Two sorted blocks of W lanes are merged with one min/max step against the reversed
+ * second block, followed by log2(W) half-cleaner steps in each output vector. The
+ * lower vector holds the W smallest values and is stored; the upper vector is carried
+ * into the next step together with the next block from whichever run has the smaller
+ * head. When the run that should supply the next block has fewer than W elements left,
+ * the carried vector and both run tails are finished with a scalar three-way merge.
+ * <p>
+ * Requires {@code --add-modules jdk.incubator.vector} at compile and run time; loaded
+ * through {@link MergeKernels#vector()}, which falls back to scalar code otherwise.
+ */
+public final class VectorMergeKernel implements MergeKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int W = SPECIES.length();
+    private static final VectorShuffle<Integer> REVERSE = VectorShuffle.fromOp(SPECIES, i -> W - 1 - i);
+    private static final VectorShuffle<Integer>[] PARTNER;
+    private static final VectorMask<Integer>[] UPPER;
+
+    static {
+        int steps = Integer.numberOfTrailingZeros(W);
+        @SuppressWarnings("unchecked")
+        VectorShuffle<Integer>[] partner = new VectorShuffle[steps];
+        @SuppressWarnings("unchecked")
+        VectorMask<Integer>[] upper = new VectorMask[steps];
+        for (int s = 0; s < steps; s++) {
+            int d = W >>> (s + 1);
+            partner[s] = VectorShuffle.fromOp(SPECIES, i -> i ^ d);
+            boolean[] bits = new boolean[W];
+            for (int i = 0; i < W; i++) {
+                bits[i] = (i & d) != 0;
+            }
+            upper[s] = VectorMask.fromArray(SPECIES, bits, 0);
+        }
+        PARTNER = partner;
+        UPPER = upper;
+    }
+
+    public VectorMergeKernel() {
+        if (W < 4) {
+            throw new UnsupportedOperationException("Vector width too small for a merge network: " + W);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector";
+    }
+
+    @Override
+    public void merge(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int dstLo) {
+        if (hi1 - lo1 + 1 < W || hi2 - lo2 + 1 < W) {
+            MergeKernels.mergeBranchless(src, lo1, hi1, lo2, hi2, dst, dstLo);
+            return;
+        }
+
+        int i = lo1 + W;
+        int j = lo2 + W;
+        int k = dstLo;
+        IntVector a = IntVector.fromArray(SPECIES, src, lo1);
+        IntVector carry = IntVector.fromArray(SPECIES, src, lo2);
+
+        while (true) {
+            // a ++ reverse(carry) is bitonic: one min/max step splits it into low and high halves
+            IntVector reversed = carry.rearrange(REVERSE);
+            IntVector low = clean(a.min(reversed));
+            carry = clean(a.max(reversed));
+            low.intoArray(dst, k);
+            k += W;
+
+            boolean takeLeft = i <= hi1 && (j > hi2 || src[i] <= src[j]);
+            if (takeLeft) {
+                if (hi1 - i + 1 < W) {
+                    break;
+                }
+                a = IntVector.fromArray(SPECIES, src, i);
+                i += W;
+            } else {
+                if (hi2 - j + 1 < W) {
+                    break;
+                }
+                a = IntVector.fromArray(SPECIES, src, j);
+                j += W;
+            }
+        }
+
+        // scalar three-way merge of the carried vector and the two run tails
+        int[] rest = new int[W];
+        carry.intoArray(rest, 0);
+        int c = 0;
+        while (c < W || i <= hi1 || j <= hi2) {
+            int best = 0; // 0 = carry, 1 = left, 2 = right
+            int value = c < W ? rest[c] : Integer.MAX_VALUE;
+            boolean any = c < W;
+            if (i <= hi1 && (!any || src[i] < value)) {
+                best = 1;
+                value = src[i];
+                any = true;
+            }
+            if (j <= hi2 && (!any || src[j] < value)) {
+                best = 2;
+                value = src[j];
+            }
+            dst[k++] = value;
+            if (best == 0) {
+                c++;
+            } else if (best == 1) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Sorts a bitonic vector with log2(W) half-cleaner steps.
+     */
+    private static IntVector clean(IntVector v) {
+        for (int s = 0; s < PARTNER.length; s++) {
+            IntVector partner = v.rearrange(PARTNER[s]);
+            v = v.min(partner).blend(v.max(partner), UPPER[s]);
+        }
+        return v;
+    }
+}